@@ -0,0 +1,75 @@
+package benchmarks;
+
+import model.publications.Book;
+import model.publications.BookStatus;
+import model.users.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.search.Completion;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CatalogBenchmarks {
+    private static final int COMPLETIONS = 10;
+    private static final int RANKED_RESULTS = 20;
+
+    private int next;
+
+    @Benchmark
+    public Book findBook(LibraryState library) {
+        return library.catalog.findBook(library.titles[next()]);
+    }
+
+    @Benchmark
+    public List<Book> searchBooks(LibraryState library) {
+        return library.catalog.searchBooks(library.queries[next()]);
+    }
+
+    @Benchmark
+    public List<Book> searchBooksSkewed(LibraryState library) {
+        return library.catalog.searchBooks(library.queries[next++ & (LibraryState.HOT_QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public List<Book> searchBooksRanked(LibraryState library) {
+        return library.catalog.searchBooksRanked(library.queries[next()], RANKED_RESULTS);
+    }
+
+    @Benchmark
+    public List<Book> searchBooksRankedByAuthor(LibraryState library) {
+        return library.catalog.searchBooksRanked(library.authorQueries[next()], RANKED_RESULTS);
+    }
+
+    @Benchmark
+    public List<Completion> completeBooks(LibraryState library) {
+        return library.catalog.completeBooks(library.prefixes[next()], COMPLETIONS);
+    }
+
+    @Benchmark
+    public List<Book> getBooksByStatus(LibraryState library) {
+        return library.catalog.getBooksByStatus(BookStatus.MISSING);
+    }
+
+    @Benchmark
+    public List<User> getObserversForBook(LibraryState library) {
+        return library.catalog.getObserversForBook(library.books[next()]);
+    }
+
+    private int next() {
+        return next++ & (LibraryState.LOOKUPS - 1);
+    }
+}
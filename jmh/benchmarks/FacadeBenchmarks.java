@@ -0,0 +1,45 @@
+package benchmarks;
+
+import model.OperationResult;
+import model.publications.Book;
+import model.users.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FacadeBenchmarks {
+    private int next;
+
+    @Benchmark
+    public int borrowAndReturnBook(LibraryState library) {
+        Book book = library.available.get(next++ % library.available.size());
+        OperationResult borrowed = library.facade.borrowBook(library.borrower, book.title());
+        OperationResult returned = library.facade.returnBook(library.borrower, book.title());
+        return borrowed.ordinal() + returned.ordinal();
+    }
+
+    @Benchmark
+    public int borrowAndReturnBooks(LibraryState library) {
+        return library.facade.borrowBooks(library.batch).size() + library.facade.returnBooks(library.batch).size();
+    }
+
+    @Benchmark
+    public Optional<User> findUserById(LibraryState library) {
+        return library.facade.findUserById(library.userIds[next++ & (LibraryState.LOOKUPS - 1)]);
+    }
+}
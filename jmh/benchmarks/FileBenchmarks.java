@@ -0,0 +1,87 @@
+package benchmarks;
+
+import io.file.CsvFileManager;
+import io.file.FileManager;
+import io.file.ImportMode;
+import io.file.JsonFileManager;
+import model.LibraryCatalog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class FileBenchmarks {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"csv", "csv.parallel", "json"})
+    public String format;
+
+    private LibraryCatalog catalog;
+    private FileManager fileManager;
+    private Path directory;
+    private PrintStream console;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        catalog = new LibraryDataGenerator(LibraryState.SEED).generate(size, Math.max(1, size / 10));
+        directory = Files.createTempDirectory("library-benchmarks");
+        fileManager = newFileManager();
+        fileManager.exportData(catalog);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public void exportData() {
+        newFileManager().exportData(catalog);
+    }
+
+    @Benchmark
+    public LibraryCatalog importData() {
+        return fileManager.importData();
+    }
+
+    private FileManager newFileManager() {
+        return switch (format) {
+            case "csv" -> new CsvFileManager(directory, ImportMode.SEQUENTIAL);
+            case "csv.parallel" -> new CsvFileManager(directory, ImportMode.PARALLEL);
+            case "json" -> new JsonFileManager(directory);
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import model.LibraryCatalog;
+import model.publications.Book;
+import model.publications.BookStatus;
+import model.users.User;
+import service.factory.UserFactory;
+
+import java.util.Random;
+
+public class LibraryDataGenerator {
+    private static final String[] USER_TYPES = {"Student", "Teacher", "Librarian"};
+    private static final BookStatus[] STATUSES = {BookStatus.AVAILABLE, BookStatus.AVAILABLE, BookStatus.AVAILABLE, BookStatus.MISSING};
+    private static final int MAX_BORROWED_PER_USER = 3;
+
+    private final long seed;
+
+    public LibraryDataGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public LibraryCatalog generate(int books, int users) {
+        Random random = new Random(seed);
+        LibraryCatalog catalog = new LibraryCatalog();
+        for (int i = 0; i < books; i++) {
+            catalog.addBook(new Book(title(i), "Autor " + random.nextInt(books / 20 + 1), 1800 + random.nextInt(225),
+                    STATUSES[random.nextInt(STATUSES.length)]));
+        }
+        for (int i = 0; i < users; i++) {
+            User user = UserFactory.createUser(USER_TYPES[random.nextInt(USER_TYPES.length)], userId(i),
+                    "Imię" + i, "Nazwisko" + i, "user" + i + "@example.com");
+            catalog.addUser(user);
+            for (int b = random.nextInt(MAX_BORROWED_PER_USER + 1); b > 0; b--) {
+                catalog.borrowBook(user, title(random.nextInt(books)));
+            }
+        }
+        for (int i = 0; i < books / 100 && users > 0; i++) {
+            Book book = catalog.findBook(title(random.nextInt(books)));
+            catalog.addObserverToBook(book, catalog.getUsers().get(random.nextInt(users)));
+        }
+        return catalog;
+    }
+
+    public static String title(int index) {
+        return "Książka numer " + index;
+    }
+
+    public static String userId(int index) {
+        return String.valueOf(index + 1);
+    }
+}
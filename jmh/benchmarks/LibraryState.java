@@ -0,0 +1,81 @@
+package benchmarks;
+
+import app.LibraryInterface;
+import model.BookRequest;
+import model.LibraryCatalog;
+import model.publications.Book;
+import model.publications.BookStatus;
+import model.users.User;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+@State(Scope.Benchmark)
+public class LibraryState {
+    static final long SEED = 42;
+    static final int LOOKUPS = 1 << 16;
+    static final int HOT_QUERIES = 256;
+    static final int BATCH_SIZE = 64;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    LibraryCatalog catalog;
+    LibraryInterface facade;
+    String[] titles;
+    String[] queries;
+    String[] prefixes;
+    String[] authorQueries;
+    String[] userIds;
+    Book[] books;
+    List<Book> available;
+    User borrower;
+    List<BookRequest> batch;
+    private PrintStream console;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        int users = Math.max(1, size / 10);
+        catalog = new LibraryDataGenerator(SEED).generate(size, users);
+        facade = new LibraryInterface(catalog);
+        Random random = new Random(SEED);
+
+        titles = new String[LOOKUPS];
+        queries = new String[LOOKUPS];
+        prefixes = new String[LOOKUPS];
+        authorQueries = new String[LOOKUPS];
+        userIds = new String[LOOKUPS];
+        books = new Book[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            int book = random.nextInt(size);
+            titles[i] = LibraryDataGenerator.title(book);
+            queries[i] = "numer " + book;
+            prefixes[i] = titles[i].substring(0, 1 + i % titles[i].length());
+            authorQueries[i] = "autor " + i % (size / 20 + 1);
+            userIds[i] = LibraryDataGenerator.userId(random.nextInt(users));
+            books[i] = catalog.findBook(titles[i]);
+        }
+        available = catalog.getBooksByStatus(BookStatus.AVAILABLE);
+        borrower = facade.findUserById(LibraryDataGenerator.userId(0)).orElseThrow();
+        batch = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new BookRequest(LibraryDataGenerator.userId(i % users), available.get(i % available.size()).title()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(console);
+    }
+}
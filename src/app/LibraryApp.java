@@ -1,9 +1,56 @@
 package app;
 
+import io.file.ColdTierFileManager;
+import io.file.CsvFileManager;
+import io.file.ImportMode;
+import io.file.JournalingFileManager;
+import service.metrics.LibraryMetrics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
 public class LibraryApp {
-    public static void main(String[] args) {
+    private static final int DEFAULT_PORT = 8080;
+    private static final Duration SNAPSHOT_INTERVAL = Duration.ofMinutes(10);
+    private static final Duration METRICS_INTERVAL = Duration.ofMinutes(1);
+
+    public static void main(String[] args) throws IOException {
+        List<String> options = List.of(args);
+        boolean tiered = options.contains("--tiered");
+        int server = options.indexOf("--server");
+
+        if (server >= 0) {
+            boolean hasPort = server + 1 < args.length && !args[server + 1].startsWith("--");
+            startServer(hasPort ? Integer.parseInt(args[server + 1]) : DEFAULT_PORT, tiered);
+            return;
+        }
 
-        LibraryControl libControl = new LibraryControl();
+        LibraryControl libControl = tiered ? new LibraryControl(tieredFileManager()) : new LibraryControl();
         libControl.controlLoop();
     }
+
+    private static JournalingFileManager tieredFileManager() {
+        return new JournalingFileManager(new ColdTierFileManager(new CsvFileManager(ImportMode.LAZY)));
+    }
+
+    private static void startServer(int port, boolean tiered) throws IOException {
+        JournalingFileManager fileManager = tiered ? tieredFileManager() : new JournalingFileManager(new CsvFileManager(ImportMode.PARALLEL));
+        LibraryInterface libraryInterface = new LibraryInterface(fileManager.importData());
+        fileManager.scheduleSnapshots(libraryInterface.getLibraryCatalog(), SNAPSHOT_INTERVAL);
+        String metricsFile = System.getProperty("library.metrics.file");
+        if (metricsFile != null) {
+            LibraryMetrics.getInstance().scheduleDump(Path.of(metricsFile), METRICS_INTERVAL);
+        }
+        LibraryHttpServer server = new LibraryHttpServer(libraryInterface, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            libraryInterface.getLibraryCatalog().getNotificationDispatcher().flush();
+            fileManager.exportData(libraryInterface.getLibraryCatalog());
+            System.out.println("Export data to file completed successfully.");
+        }));
+        server.start();
+        System.out.println("Library HTTP server listening on port " + server.getPort());
+    }
 }
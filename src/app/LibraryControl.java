@@ -4,25 +4,33 @@ import exceptions.DataExportException;
 import io.file.CsvFileManager;
 import io.file.FileManager;
 import model.LibraryCatalog;
+import model.OperationResult;
+import model.Page;
 import model.publications.Book;
 import model.publications.BookStatus;
 import model.users.User;
 import service.factory.UserFactory;
 
 import java.util.InputMismatchException;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Scanner;
 
 public class LibraryControl {
+    private static final int USERS_PAGE_SIZE = 20;
+    private static final int SEARCH_RESULTS = 20;
+
     private final LibraryInterface libraryInterface;
     private final Scanner scanner;
     private final FileManager fileManager;
 
 
     public LibraryControl() {
+        this(new CsvFileManager());
+    }
+
+    public LibraryControl(FileManager fileManager) {
 
-        fileManager = new CsvFileManager();
+        this.fileManager = fileManager;
         LibraryCatalog libraryCatalog = fileManager.importData();
         this.libraryInterface = new LibraryInterface(libraryCatalog);
         this.scanner = new Scanner(System.in);
@@ -63,6 +71,9 @@ public class LibraryControl {
                     unsubscribeFromNotifications();
                     break;
                 case 10:
+                    searchBooksRanked();
+                    break;
+                case 11:
                     exit();
                     System.out.println("Exiting the library system.");
                     scanner.close();
@@ -74,6 +85,7 @@ public class LibraryControl {
     }
 
     private void exit() {
+        libraryInterface.getLibraryCatalog().getNotificationDispatcher().flush();
         try {
             fileManager.exportData(libraryInterface.getLibraryCatalog());
             System.out.println("Export data to file completed successfully.");
@@ -96,17 +108,18 @@ public class LibraryControl {
         System.out.println("7. Show Available Books");
         System.out.println("8. Subscribe to Notifications");
         System.out.println("9. Unsubscribe from Notifications");
-        System.out.println("10. Exit");
+        System.out.println("10. Ranked Search by Title or Author");
+        System.out.println("11. Exit");
     }
 
     private int getUserChoice() {
         int choice = -1;
-        while (choice < 1 || choice > 10) {
-            System.out.print("Enter your choice (1-10): ");
+        while (choice < 1 || choice > 11) {
+            System.out.print("Enter your choice (1-11): ");
             try {
                 choice = scanner.nextInt();
             } catch (InputMismatchException e) {
-                System.out.println("Invalid input. Please enter a number between 1 and 10.");
+                System.out.println("Invalid input. Please enter a number between 1 and 11.");
                 scanner.next();
             }
         }
@@ -117,7 +130,17 @@ public class LibraryControl {
         scanner.nextLine();
         System.out.print("Enter book title to search: ");
         String title = scanner.nextLine();
-        List<Book> books = libraryInterface.searchBooks(title);
+        printBooks(libraryInterface.searchBooks(title));
+    }
+
+    private void searchBooksRanked() {
+        scanner.nextLine();
+        System.out.print("Enter words from book title or author: ");
+        String query = scanner.nextLine();
+        printBooks(libraryInterface.searchBooksRanked(query, SEARCH_RESULTS));
+    }
+
+    private static void printBooks(List<Book> books) {
         if (books.isEmpty()) {
             System.out.println("No books found.");
         } else {
@@ -132,7 +155,15 @@ public class LibraryControl {
 
         System.out.print("Enter book title to borrow: ");
         String title = scanner.nextLine();
-        libraryInterface.findUserById(id).ifPresentOrElse(user -> libraryInterface.borrowBook(user, title), LibraryControl::noUserFound);
+        libraryInterface.findUserById(id).ifPresentOrElse(user -> {
+            switch (libraryInterface.borrowBook(user, title)) {
+                case SUCCESS -> System.out.println("Book borrowed successfully!");
+                case BOOK_NOT_FOUND -> System.out.println("Book not found.");
+                case ALREADY_BORROWED -> System.out.println("Book is already borrowed.");
+                default -> {
+                }
+            }
+        }, LibraryControl::noUserFound);
     }
 
     private static void noUserFound() {
@@ -146,7 +177,15 @@ public class LibraryControl {
 
         System.out.print("Enter book title to return: ");
         String title = scanner.nextLine();
-        libraryInterface.findUserById(id).ifPresentOrElse(user -> libraryInterface.returnBook(user, title), LibraryControl::noUserFound);
+        libraryInterface.findUserById(id).ifPresentOrElse(user -> {
+            switch (libraryInterface.returnBook(user, title)) {
+                case SUCCESS -> System.out.println("Book returned successfully!");
+                case BOOK_NOT_FOUND -> System.out.println("Book not found.");
+                case NOT_BORROWED -> System.out.println("This user did not borrow this book.");
+                default -> {
+                }
+            }
+        }, LibraryControl::noUserFound);
     }
 
     private void addBook() {
@@ -161,8 +200,11 @@ public class LibraryControl {
         int year = scanner.nextInt();
 
         Book book = new Book(title, author, year, BookStatus.AVAILABLE);
-        libraryInterface.addBookToCatalog(book);
-        System.out.println("Book added to catalog.");
+        if (libraryInterface.addBookToCatalog(book) == OperationResult.SUCCESS) {
+            System.out.println("Book added to catalog.");
+        } else {
+            System.out.println("Book already exists in catalog.");
+        }
     }
 
     private void addUser() {
@@ -188,8 +230,20 @@ public class LibraryControl {
     }
 
     private void showUsers() {
-        Iterator<User> userIterator = libraryInterface.getLibraryCatalog().userIterator();
-        userIterator.forEachRemaining(System.out::println);
+        scanner.nextLine();
+        int cursor = 0;
+        while (true) {
+            Page<User> page = libraryInterface.getUsersPage(cursor, USERS_PAGE_SIZE);
+            page.items().forEach(System.out::println);
+            if (!page.hasMore()) {
+                return;
+            }
+            System.out.print("Press Enter to show more users or type q to go back: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                return;
+            }
+            cursor = page.nextCursor();
+        }
     }
 
     private void showAvailableBooks() {
@@ -211,9 +265,7 @@ public class LibraryControl {
         String bookTitle = scanner.nextLine();
 
         libraryInterface.findUserById(userId).ifPresentOrElse(user -> {
-            Book book = libraryInterface.getLibraryCatalog().findBook(bookTitle);
-            if (book != null) {
-                libraryInterface.getLibraryCatalog().addObserverToBook(book, user);
+            if (libraryInterface.subscribe(user, bookTitle) == OperationResult.SUCCESS) {
                 System.out.println("Subscribed to notifications for book: " + bookTitle);
             } else {
                 System.out.println("Book not found.");
@@ -230,9 +282,7 @@ public class LibraryControl {
         String bookTitle = scanner.nextLine();
 
         libraryInterface.findUserById(userId).ifPresentOrElse(user -> {
-            Book book = libraryInterface.getLibraryCatalog().findBook(bookTitle);
-            if (book != null) {
-                libraryInterface.getLibraryCatalog().removeObserverFromBook(book, user);
+            if (libraryInterface.unsubscribe(user, bookTitle) == OperationResult.SUCCESS) {
                 System.out.println("Unsubscribed from notifications for book: " + bookTitle);
             } else {
                 System.out.println("Book not found.");
@@ -0,0 +1,298 @@
+package app;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import model.OperationResult;
+import model.Page;
+import model.publications.Book;
+import model.publications.BookStatus;
+import model.users.User;
+import service.factory.UserFactory;
+import service.search.Completion;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+public class LibraryHttpServer {
+    private static final int BACKLOG = 4096;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_RANKED_RESULTS = 20;
+    private static final int MAX_RANKED_RESULTS = 100;
+    private static final int DEFAULT_COMPLETIONS = 10;
+    private static final int MAX_COMPLETIONS = 50;
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final LibraryInterface libraryInterface;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public LibraryHttpServer(LibraryInterface libraryInterface, int port) throws IOException {
+        this.libraryInterface = libraryInterface;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/books/search", exchange -> handle(exchange, "GET", this::searchBooks));
+        server.createContext("/books/ranked", exchange -> handle(exchange, "GET", this::searchBooksRanked));
+        server.createContext("/books/complete", exchange -> handle(exchange, "GET", this::completeBooks));
+        server.createContext("/books/page", exchange -> handle(exchange, "GET", this::booksPage));
+        server.createContext("/books", exchange -> handle(exchange, "POST", this::addBook));
+        server.createContext("/users/page", exchange -> handle(exchange, "GET", this::usersPage));
+        server.createContext("/users", exchange -> handle(exchange, "POST", this::addUser));
+        server.createContext("/borrow", exchange -> handle(exchange, "POST", params -> forUser(params, libraryInterface::borrowBook)));
+        server.createContext("/return", exchange -> handle(exchange, "POST", params -> forUser(params, libraryInterface::returnBook)));
+        server.createContext("/subscribe", exchange -> handle(exchange, "POST", params -> forUser(params, libraryInterface::subscribe)));
+        server.createContext("/unsubscribe", exchange -> handle(exchange, "POST", params -> forUser(params, libraryInterface::unsubscribe)));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.close();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private Response searchBooks(Map<String, String> params) {
+        List<Book> books = libraryInterface.searchBooks(required(params, "title"));
+        return new Response(200, json(generator -> writeBooks(generator, books)));
+    }
+
+    private Response searchBooksRanked(Map<String, String> params) {
+        int limit = Math.min(intParam(params, "limit", DEFAULT_RANKED_RESULTS), MAX_RANKED_RESULTS);
+        List<Book> books = libraryInterface.searchBooksRanked(required(params, "query"), limit);
+        return new Response(200, json(generator -> writeBooks(generator, books)));
+    }
+
+    private Response completeBooks(Map<String, String> params) {
+        int limit = Math.min(intParam(params, "limit", DEFAULT_COMPLETIONS), MAX_COMPLETIONS);
+        List<Completion> completions = libraryInterface.completeBooks(required(params, "prefix"), limit);
+        return new Response(200, json(generator -> {
+            generator.writeStartArray();
+            for (Completion completion : completions) {
+                generator.writeStartObject();
+                generator.writeStringField("text", completion.text());
+                generator.writeNumberField("borrows", completion.score());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }));
+    }
+
+    private Response booksPage(Map<String, String> params) {
+        Page<Book> page = libraryInterface.getBooksPage(intParam(params, "cursor", 0), pageSize(params));
+        return new Response(200, json(generator -> {
+            generator.writeStartObject();
+            generator.writeFieldName("books");
+            writeBooks(generator, page.items());
+            generator.writeNumberField("nextCursor", page.nextCursor());
+            generator.writeEndObject();
+        }));
+    }
+
+    private Response usersPage(Map<String, String> params) {
+        Page<User> page = libraryInterface.getUsersPage(intParam(params, "cursor", 0), pageSize(params));
+        return new Response(200, json(generator -> {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("users");
+            for (User user : page.items()) {
+                writeUser(generator, user);
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("nextCursor", page.nextCursor());
+            generator.writeEndObject();
+        }));
+    }
+
+    private static int pageSize(Map<String, String> params) {
+        return Math.min(intParam(params, "size", DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE);
+    }
+
+    private Response addBook(Map<String, String> params) {
+        Book book = new Book(required(params, "title"), required(params, "author"),
+                parseInt("year", required(params, "year")), BookStatus.AVAILABLE);
+        OperationResult result = libraryInterface.addBookToCatalog(book);
+        if (result != OperationResult.SUCCESS) {
+            return result(statusCode(result), result);
+        }
+        return new Response(201, json(generator -> writeBook(generator, book)));
+    }
+
+    private Response addUser(Map<String, String> params) {
+        User user = UserFactory.createUser(required(params, "type"), libraryInterface.getNextId(),
+                required(params, "firstName"), required(params, "lastName"), required(params, "email"));
+        libraryInterface.addUserToSystem(user);
+        return new Response(201, json(generator -> writeUser(generator, user)));
+    }
+
+    private Response forUser(Map<String, String> params, BiFunction<User, String, OperationResult> operation) {
+        Optional<User> user = libraryInterface.findUserById(required(params, "userId"));
+        if (user.isEmpty()) {
+            return result(404, OperationResult.USER_NOT_FOUND);
+        }
+        OperationResult result = operation.apply(user.get(), required(params, "title"));
+        return result(statusCode(result), result);
+    }
+
+    private static int statusCode(OperationResult result) {
+        return switch (result) {
+            case SUCCESS -> 200;
+            case BOOK_NOT_FOUND, USER_NOT_FOUND -> 404;
+            case BOOK_EXISTS, ALREADY_BORROWED, LIMIT_REACHED, NOT_BORROWED -> 409;
+        };
+    }
+
+    private static Response result(int status, OperationResult result) {
+        return new Response(status, json(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("result", result.name());
+            generator.writeEndObject();
+        }));
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, json(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("error", message);
+            generator.writeEndObject();
+        }));
+    }
+
+    private static String json(JsonWriter writer) {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = JSON.createGenerator(out)) {
+            writer.write(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private static void writeBooks(JsonGenerator generator, List<Book> books) throws IOException {
+        generator.writeStartArray();
+        for (Book book : books) {
+            writeBook(generator, book);
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeBook(JsonGenerator generator, Book book) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("title", book.title());
+        generator.writeStringField("author", book.author());
+        generator.writeNumberField("year", book.year());
+        generator.writeStringField("status", book.status().name());
+        generator.writeEndObject();
+    }
+
+    private static void writeUser(JsonGenerator generator, User user) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", user.getId());
+        generator.writeStringField("firstName", user.getFirstName());
+        generator.writeStringField("lastName", user.getLastName());
+        generator.writeStringField("email", user.getEmail());
+        generator.writeEndObject();
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        Response response;
+        try {
+            if (!exchange.getRequestMethod().equalsIgnoreCase(method)) {
+                response = error(405, "Method not allowed");
+            } else {
+                response = handler.handle(readParams(exchange));
+            }
+        } catch (IllegalArgumentException e) {
+            response = error(400, e.getMessage());
+        } catch (RuntimeException e) {
+            System.out.println("Error handling " + exchange.getRequestURI() + ": " + e);
+            response = error(500, "Internal server error");
+        }
+
+        byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status(), body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> readParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        try (var in = exchange.getRequestBody()) {
+            parseForm(new String(in.readAllBytes(), StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parseForm(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        int parsed = parseInt(name, value);
+        if (parsed < 0) {
+            throw new IllegalArgumentException("Invalid parameter: " + name);
+        }
+        return parsed;
+    }
+
+    private static int parseInt(String name, String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid parameter: " + name);
+        }
+    }
+
+    private interface JsonWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    private interface Handler {
+        Response handle(Map<String, String> params);
+    }
+
+    private record Response(int status, String body) {
+    }
+}
@@ -1,86 +1,229 @@
 package app;
 
+import model.BookRequest;
 import model.LibraryCatalog;
+import model.OperationResult;
+import model.Page;
 import model.publications.Book;
-import model.publications.BookStatus;
 import model.users.User;
+import service.metrics.LibraryMetrics;
+import service.metrics.OperationStats;
+import service.observer.Notification;
+import service.search.Completion;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 public class LibraryInterface {
+    private static final OperationStats SEARCH = LibraryMetrics.operation("facade.searchBooks");
+    private static final OperationStats RANKED_SEARCH = LibraryMetrics.operation("facade.searchBooksRanked");
+    private static final OperationStats COMPLETE = LibraryMetrics.operation("facade.completeBooks");
+    private static final OperationStats BORROW = LibraryMetrics.operation("facade.borrowBook");
+    private static final OperationStats RETURN = LibraryMetrics.operation("facade.returnBook");
+    private static final OperationStats SUBSCRIBE = LibraryMetrics.operation("facade.subscribe");
+    private static final OperationStats UNSUBSCRIBE = LibraryMetrics.operation("facade.unsubscribe");
+    private static final OperationStats FIND_USER = LibraryMetrics.operation("facade.findUserById");
+    private static final OperationStats BORROW_BATCH = LibraryMetrics.operation("facade.borrowBooks");
+    private static final OperationStats RETURN_BATCH = LibraryMetrics.operation("facade.returnBooks");
+    private static final OperationStats ADD_BATCH = LibraryMetrics.operation("facade.addBooks");
 
     private final LibraryCatalog libraryCatalog;
 
     public LibraryInterface(LibraryCatalog libraryCatalog) {
         this.libraryCatalog = libraryCatalog;
+        LibraryMetrics.getInstance().watchCatalog(libraryCatalog);
     }
 
     public List<Book> searchBooks(String title) {
-        return libraryCatalog.searchBooks(title);
+        long start = System.nanoTime();
+        try {
+            return libraryCatalog.searchBooks(title);
+        } finally {
+            SEARCH.recordSince(start);
+        }
     }
 
-    public void borrowBook(User user, String title) {
-        Book book = libraryCatalog.findBook(title);
-        if (book == null) {
-            System.out.println("Book not found.");
-        }
-        if (book.status() == BookStatus.BORROWED) {
-            System.out.println("Book is already borrowed.");
+    public List<Book> searchBooksRanked(String query, int limit) {
+        long start = System.nanoTime();
+        try {
+            return libraryCatalog.searchBooksRanked(query, limit);
+        } finally {
+            RANKED_SEARCH.recordSince(start);
         }
+    }
 
-        book = new Book(book.title(), book.author(), book.year(), BookStatus.BORROWED);
-        libraryCatalog.updateBook(book);
+    public List<Completion> completeBooks(String prefix, int limit) {
+        long start = System.nanoTime();
+        try {
+            return libraryCatalog.completeBooks(prefix, limit);
+        } finally {
+            COMPLETE.recordSince(start);
+        }
+    }
 
-        user.addBook(book);
+    public OperationResult borrowBook(User user, String title) {
+        long start = System.nanoTime();
+        try {
+            OperationResult result = libraryCatalog.borrowBook(user, title);
+            if (result == OperationResult.SUCCESS) {
+                Book book = libraryCatalog.findBook(title);
+                List<User> observers = libraryCatalog.getObserversForBook(book);
+                List<Notification> notifications = new ArrayList<>();
+                for (User observer : observers) {
+                    if (!observer.equals(user)) {
+                        notifications.add(Notification.of(observer, book, notificationText(observer, List.of(book), true)));
+                    }
+                }
+                libraryCatalog.getNotificationDispatcher().dispatchAll(notifications);
+            }
+            return result;
+        } finally {
+            BORROW.recordSince(start);
+        }
+    }
 
-        List<User> observers = libraryCatalog.getObserversForBook(book);
-        for (User observer : observers) {
-            if (!observer.equals(user)) {
-                System.out.println("Notification sent to " + observer.getFirstName() + " " + observer.getLastName() + ": " +
-                        "The book \"" + book.title() + "\" has been borrowed by another user.");
+    public OperationResult returnBook(User user, String title) {
+        long start = System.nanoTime();
+        try {
+            OperationResult result = libraryCatalog.returnBook(user, title);
+            if (result == OperationResult.SUCCESS) {
+                Book book = libraryCatalog.findBook(title);
+                List<User> observers = libraryCatalog.getObserversForBook(book);
+                List<Notification> notifications = new ArrayList<>();
+                for (User observer : observers) {
+                    notifications.add(Notification.of(observer, book, notificationText(observer, List.of(book), false)));
+                }
+                libraryCatalog.getNotificationDispatcher().dispatchAll(notifications);
             }
+            return result;
+        } finally {
+            RETURN.recordSince(start);
+        }
+    }
+
+    public List<OperationResult> borrowBooks(List<BookRequest> requests) {
+        long start = System.nanoTime();
+        try {
+            List<OperationResult> results = libraryCatalog.borrowBooks(requests);
+            notifyWatchers(requests, results, true);
+            return results;
+        } finally {
+            BORROW_BATCH.recordSince(start);
+        }
+    }
+
+    public List<OperationResult> returnBooks(List<BookRequest> requests) {
+        long start = System.nanoTime();
+        try {
+            List<OperationResult> results = libraryCatalog.returnBooks(requests);
+            notifyWatchers(requests, results, false);
+            return results;
+        } finally {
+            RETURN_BATCH.recordSince(start);
+        }
+    }
+
+    public List<OperationResult> addBooksToCatalog(List<Book> books) {
+        long start = System.nanoTime();
+        try {
+            return libraryCatalog.addBooks(books);
+        } finally {
+            ADD_BATCH.recordSince(start);
         }
+    }
 
+    private void notifyWatchers(List<BookRequest> requests, List<OperationResult> results, boolean borrowed) {
+        Map<Book, String> changedBooks = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (results.get(i) == OperationResult.SUCCESS) {
+                changedBooks.put(libraryCatalog.findBook(requests.get(i).title()), requests.get(i).userId());
+            }
+        }
+        Map<User, List<Book>> booksByObserver = new LinkedHashMap<>();
+        changedBooks.forEach((book, userId) -> {
+            for (User observer : libraryCatalog.getObserversForBook(book)) {
+                if (!borrowed || !observer.getId().equals(userId)) {
+                    booksByObserver.computeIfAbsent(observer, key -> new ArrayList<>()).add(book);
+                }
+            }
+        });
+        List<Notification> notifications = new ArrayList<>();
+        booksByObserver.forEach((observer, books) -> notifications.add(Notification.of(observer, books.get(0), notificationText(observer, books, borrowed))));
+        libraryCatalog.getNotificationDispatcher().dispatchAll(notifications);
+    }
 
-        System.out.println("Book borrowed successfully!");
+    private static String notificationText(User observer, List<Book> books, boolean borrowed) {
+        String prefix = "Notification sent to " + observer.getFirstName() + " " + observer.getLastName() + ": ";
+        if (books.size() == 1) {
+            return prefix + "The book \"" + books.get(0).title() + (borrowed ? "\" has been borrowed by another user." : "\" is now available in the library.");
+        }
+        String titles = books.stream().map(book -> "\"" + book.title() + "\"").collect(Collectors.joining(", "));
+        return prefix + "The books " + titles + (borrowed ? " have been borrowed by other users." : " are now available in the library.");
     }
 
-    public void returnBook(User user, String title) {
-        Book book = libraryCatalog.findBook(title);
-        if (book == null) {
-             System.out.println("Book not found.");
+    public OperationResult subscribe(User user, String title) {
+        long start = System.nanoTime();
+        try {
+            Book book = libraryCatalog.findBook(title);
+            if (book == null) {
+                return OperationResult.BOOK_NOT_FOUND;
+            }
+            libraryCatalog.addObserverToBook(book, user);
+            return OperationResult.SUCCESS;
+        } finally {
+            SUBSCRIBE.recordSince(start);
         }
+    }
 
-        if (user.hasBook(book)) {
-            Book bookNew = new Book(book.title(), book.author(), book.year(), BookStatus.AVAILABLE);
-            libraryCatalog.updateBook(bookNew);
-            user.removeBook(book);
-            List<User> observers = libraryCatalog.getObserversForBook(bookNew);
-            for (User observer : observers) {
-                System.out.println("Notification sent to " + observer.getFirstName() + " " + observer.getLastName() + ": " +
-                        "The book \"" + bookNew.title() + "\" is now available in the library.");
+    public OperationResult unsubscribe(User user, String title) {
+        long start = System.nanoTime();
+        try {
+            Book book = libraryCatalog.findBook(title);
+            if (book == null) {
+                return OperationResult.BOOK_NOT_FOUND;
             }
-            System.out.println("Book returned successfully!");
-        } else {
-            System.out.println("This user did not borrow this book.");
+            libraryCatalog.removeObserverFromBook(book, user);
+            return OperationResult.SUCCESS;
+        } finally {
+            UNSUBSCRIBE.recordSince(start);
         }
     }
 
-    public void addBookToCatalog(Book book) {
-        libraryCatalog.addBook(book);
+    public List<Book> getWatchedBooks(User user) {
+        return libraryCatalog.getWatchedBooks(user);
+    }
+
+    public OperationResult addBookToCatalog(Book book) {
+        return addBooksToCatalog(List.of(book)).get(0);
     }
 
     public void addUserToSystem(User user) {
         libraryCatalog.addUser(user);
     }
 
-    public Optional<User> findUserById(String id){
-       return libraryCatalog.getUsers().stream().filter(user -> user.getId().equals(id) ).findFirst();
+    public Optional<User> findUserById(String id) {
+        long start = System.nanoTime();
+        try {
+            return Optional.ofNullable(libraryCatalog.findUser(id));
+        } finally {
+            FIND_USER.recordSince(start);
+        }
+    }
+
+    public Page<Book> getBooksPage(int cursor, int pageSize) {
+        return libraryCatalog.getBooksPage(cursor, pageSize);
+    }
+
+    public Page<User> getUsersPage(int cursor, int pageSize) {
+        return libraryCatalog.getUsersPage(cursor, pageSize);
     }
 
     public String getNextId(){
-        return String.valueOf(Integer.parseInt(libraryCatalog.getUsers().getLast().getId()) + 1);
+        return libraryCatalog.nextUserId();
     }
 
     public LibraryCatalog getLibraryCatalog() {
@@ -0,0 +1,198 @@
+package io.file;
+
+import exceptions.DataExportException;
+import exceptions.DataImportException;
+import model.CatalogSnapshot;
+import model.LibraryCatalog;
+import model.publications.Book;
+import model.publications.BookStatus;
+import model.users.User;
+import service.factory.UserFactory;
+import service.metrics.LibraryMetrics;
+import service.metrics.OperationStats;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class BinaryFileManager implements FileManager {
+    private static final String LIBRARY_FILE_NAME = "Library.bin";
+    private static final int MAGIC = 0x4C494231;
+    private static final int VERSION = 1;
+    private static final BookStatus[] STATUSES = BookStatus.values();
+    private static final OperationStats IMPORT = LibraryMetrics.operation("binary.import");
+    private static final OperationStats EXPORT = LibraryMetrics.operation("binary.export");
+
+    private final Path directory;
+
+    public BinaryFileManager() {
+        this(Path.of(""));
+    }
+
+    public BinaryFileManager(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public LibraryCatalog importData() {
+        long start = System.nanoTime();
+        try {
+            LibraryCatalog libraryCatalog = new LibraryCatalog();
+            try (FileChannel channel = FileChannel.open(file(), StandardOpenOption.READ)) {
+                BinaryInput in = new BinaryInput(channel);
+                if (in.readInt() != MAGIC) {
+                    throw new DataImportException("Plik " + LIBRARY_FILE_NAME + " nie jest plikiem katalogu");
+                }
+                int version = in.readByte();
+                if (version != VERSION) {
+                    throw new DataImportException("Nieobsługiwana wersja pliku " + LIBRARY_FILE_NAME + ": " + version);
+                }
+                String[] authors = readAuthors(in);
+                List<Book> books = readBooks(in, authors, libraryCatalog);
+                List<User> users = readUsers(in, books, libraryCatalog);
+                readSubscriptions(in, books, users, libraryCatalog);
+            } catch (IOException | IndexOutOfBoundsException e) {
+                throw new DataImportException("Błąd odczytu pliku " + LIBRARY_FILE_NAME + " " + e);
+            }
+            return libraryCatalog;
+        } finally {
+            IMPORT.recordSince(start);
+        }
+    }
+
+    @Override
+    public void exportData(LibraryCatalog libraryCatalog) {
+        long start = System.nanoTime();
+        try {
+            AtomicFiles.replace(AtomicFiles.writeTempBinary(file(), channel -> write(channel, libraryCatalog)), file());
+        } catch (IOException e) {
+            throw new DataExportException("Błąd zapisu danych do pliku " + LIBRARY_FILE_NAME + " " + e);
+        } finally {
+            EXPORT.recordSince(start);
+        }
+    }
+
+    private void write(FileChannel channel, LibraryCatalog libraryCatalog) throws IOException {
+        BinaryOutput out = new BinaryOutput(channel);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+
+        CatalogSnapshot snapshot = libraryCatalog.snapshot();
+        List<Book> books = snapshot.getBooks();
+        Map<String, Integer> authorIds = new HashMap<>();
+        Map<String, Integer> bookIds = new HashMap<>();
+        for (int position = 0; position < books.size(); position++) {
+            Book book = books.get(position);
+            authorIds.putIfAbsent(book.author(), authorIds.size());
+            bookIds.putIfAbsent(book.title().toLowerCase(Locale.ROOT), position);
+        }
+        String[] authors = new String[authorIds.size()];
+        authorIds.forEach((author, id) -> authors[id] = author);
+        out.writeVarInt(authors.length);
+        for (String author : authors) {
+            out.writeString(author);
+        }
+
+        out.writeVarInt(books.size());
+        for (Book book : books) {
+            out.writeString(book.title());
+            out.writeVarInt(authorIds.get(book.author()));
+            out.writeSignedVarInt(book.year());
+            out.writeByte(book.status().ordinal());
+        }
+
+        List<User> users = snapshot.getUsers();
+        Map<User, Integer> userIds = new IdentityHashMap<>();
+        out.writeVarInt(users.size());
+        for (User user : users) {
+            userIds.put(user, userIds.size());
+            out.writeString(user.getClass().getSimpleName());
+            out.writeString(user.getId());
+            out.writeString(user.getFirstName());
+            out.writeString(user.getLastName());
+            out.writeString(user.getEmail());
+            List<Book> borrowedBooks = user.getBorrowedBooks();
+            out.writeVarInt(borrowedBooks.size());
+            for (Book book : borrowedBooks) {
+                out.writeSignedVarInt(bookReference(bookIds, book.title()));
+            }
+        }
+
+        Map<Book, List<User>> bookObservers = libraryCatalog.getBookObservers();
+        out.writeVarInt(bookObservers.size());
+        for (Map.Entry<Book, List<User>> entry : bookObservers.entrySet()) {
+            out.writeSignedVarInt(bookReference(bookIds, entry.getKey().title()));
+            List<User> observers = entry.getValue().stream().filter(userIds::containsKey).toList();
+            out.writeVarInt(observers.size());
+            for (User observer : observers) {
+                out.writeVarInt(userIds.get(observer));
+            }
+        }
+        out.flush();
+    }
+
+    private static int bookReference(Map<String, Integer> bookIds, String title) {
+        return bookIds.getOrDefault(title.toLowerCase(Locale.ROOT), -1);
+    }
+
+    private String[] readAuthors(BinaryInput in) throws IOException {
+        String[] authors = new String[in.readVarInt()];
+        for (int i = 0; i < authors.length; i++) {
+            authors[i] = in.readString();
+        }
+        return authors;
+    }
+
+    private List<Book> readBooks(BinaryInput in, String[] authors, LibraryCatalog libraryCatalog) throws IOException {
+        int count = in.readVarInt();
+        for (int i = 0; i < count; i++) {
+            String title = in.readString();
+            String author = authors[in.readVarInt()];
+            int year = in.readSignedVarInt();
+            BookStatus status = STATUSES[in.readByte()];
+            libraryCatalog.addBook(new Book(title, author, year, status));
+        }
+        return libraryCatalog.getBooks();
+    }
+
+    private List<User> readUsers(BinaryInput in, List<Book> books, LibraryCatalog libraryCatalog) throws IOException {
+        int count = in.readVarInt();
+        for (int i = 0; i < count; i++) {
+            User user = UserFactory.createUser(in.readString(), in.readString(), in.readString(), in.readString(), in.readString());
+            int borrowed = in.readVarInt();
+            for (int b = 0; b < borrowed; b++) {
+                int reference = in.readSignedVarInt();
+                int handle = reference < 0 ? -1 : libraryCatalog.handleOf(books.get(reference).title());
+                if (handle >= 0) {
+                    user.addBook(handle);
+                }
+            }
+            libraryCatalog.addUser(user);
+        }
+        return libraryCatalog.getUsers();
+    }
+
+    private void readSubscriptions(BinaryInput in, List<Book> books, List<User> users, LibraryCatalog libraryCatalog) throws IOException {
+        int count = in.readVarInt();
+        for (int i = 0; i < count; i++) {
+            int reference = in.readSignedVarInt();
+            int observers = in.readVarInt();
+            for (int o = 0; o < observers; o++) {
+                User user = users.get(in.readVarInt());
+                if (reference >= 0) {
+                    libraryCatalog.addObserverToBook(books.get(reference), user);
+                }
+            }
+        }
+    }
+
+    private Path file() {
+        return directory.resolve(LIBRARY_FILE_NAME);
+    }
+}
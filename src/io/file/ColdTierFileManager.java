@@ -0,0 +1,85 @@
+package io.file;
+
+import exceptions.DataExportException;
+import exceptions.DataImportException;
+import model.ColdBookTier;
+import model.LibraryCatalog;
+import model.publications.Book;
+import model.publications.BookStatus;
+import model.users.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ColdTierFileManager implements FileManager {
+    private static final String COLD_FILE_NAME = "Library.cold";
+
+    private final FileManager delegate;
+    private final Path directory;
+
+    public ColdTierFileManager(FileManager delegate) {
+        this(delegate, Path.of(""));
+    }
+
+    public ColdTierFileManager(FileManager delegate, Path directory) {
+        this.delegate = delegate;
+        this.directory = directory;
+    }
+
+    @Override
+    public LibraryCatalog importData() {
+        LibraryCatalog libraryCatalog = delegate.importData();
+        Path file = directory.resolve(COLD_FILE_NAME);
+        if (Files.exists(file)) {
+            try {
+                libraryCatalog.attachColdTier(ColdBookTier.open(file));
+            } catch (IOException e) {
+                throw new DataImportException("Błąd odczytu archiwum " + COLD_FILE_NAME + " " + e);
+            }
+        }
+        return libraryCatalog;
+    }
+
+    @Override
+    public void exportData(LibraryCatalog libraryCatalog) {
+        delegate.exportData(libraryCatalog);
+    }
+
+    public LibraryCatalog archive(LibraryCatalog libraryCatalog) {
+        LibraryCatalog hotCatalog = new LibraryCatalog();
+        List<Book> coldBooks = new ArrayList<>();
+        for (Book book : libraryCatalog) {
+            if (book.status() == BookStatus.BORROWED || !libraryCatalog.getObserversForBook(book).isEmpty()) {
+                hotCatalog.addBook(book);
+            } else {
+                coldBooks.add(book);
+            }
+        }
+        for (User user : libraryCatalog.getUsers()) {
+            hotCatalog.addUser(user);
+        }
+        libraryCatalog.getBookObservers().forEach((book, observers) ->
+                observers.forEach(observer -> hotCatalog.addObserverToBook(book, observer)));
+
+        Path file = directory.resolve(COLD_FILE_NAME);
+        try {
+            AtomicFiles.replace(AtomicFiles.writeTempBinary(file, channel -> ColdBookTier.write(channel, coldBooks)), file);
+            hotCatalog.attachColdTier(ColdBookTier.open(file));
+        } catch (IOException e) {
+            throw new DataExportException("Błąd zapisu archiwum " + COLD_FILE_NAME + " " + e);
+        }
+        return hotCatalog;
+    }
+
+    public static void main(String[] args) {
+        Path directory = args.length > 0 ? Path.of(args[0]) : Path.of("");
+        ColdTierFileManager coldTierFileManager = new ColdTierFileManager(new CsvFileManager(directory, ImportMode.PARALLEL), directory);
+        JournalingFileManager fileManager = new JournalingFileManager(coldTierFileManager, directory.resolve("Library.journal"));
+        LibraryCatalog hotCatalog = coldTierFileManager.archive(fileManager.importData());
+        fileManager.exportData(hotCatalog);
+        System.out.println("Archived " + hotCatalog.getColdTier().size() + " books, " + hotCatalog.getBooks().size() + " books stay on the heap.");
+    }
+}
@@ -8,166 +8,384 @@ import model.publications.Book;
 import model.publications.BookStatus;
 import model.users.User;
 import service.factory.UserFactory;
+import service.metrics.LibraryMetrics;
+import service.metrics.OperationStats;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.LongStream;
 
 public class CsvFileManager implements FileManager {
     private static final String PUBLICATIONS_FILE_NAME = "Library.csv";
     private static final String USERS_FILE_NAME = "Library_users.csv";
     private static final String NOTIFICATIONS_FILE_NAME = "Notifications.csv";
+    private static final OperationStats IMPORT = LibraryMetrics.operation("csv.import");
+    private static final OperationStats EXPORT = LibraryMetrics.operation("csv.export");
+
+    private final Path directory;
+    private final ImportMode importMode;
+    private final Map<String, FileStamp> writtenFiles = new HashMap<>();
+    private LibraryCatalog trackedCatalog;
+    private long booksVersion;
+    private long usersVersion;
+    private long subscriptionsVersion;
+    private long[] segmentEnds;
+
+    public CsvFileManager() {
+        this(Path.of(""), ImportMode.SEQUENTIAL);
+    }
+
+    public CsvFileManager(ImportMode importMode) {
+        this(Path.of(""), importMode);
+    }
+
+    public CsvFileManager(Path directory, ImportMode importMode) {
+        this.directory = directory;
+        this.importMode = importMode;
+    }
 
     @Override
     public LibraryCatalog importData() {
-        LibraryCatalog libraryCatalog = new LibraryCatalog();
-        importBooks(libraryCatalog);
-        importUsers(libraryCatalog);
-        importObservers(libraryCatalog);
-        return libraryCatalog;
+        long start = System.nanoTime();
+        try {
+            LibraryCatalog libraryCatalog = new LibraryCatalog();
+            importBooks(libraryCatalog);
+            if (importMode == ImportMode.LAZY) {
+                libraryCatalog.setUserLoader(new CsvUserLoader(libraryCatalog, file(USERS_FILE_NAME), file(NOTIFICATIONS_FILE_NAME)));
+            } else {
+                importUsers(libraryCatalog);
+                importObservers(libraryCatalog);
+            }
+            track(libraryCatalog, libraryCatalog.getBooksVersion(), libraryCatalog.getUsersVersion(),
+                    libraryCatalog.getSubscriptionsVersion(), null);
+            return libraryCatalog;
+        } finally {
+            IMPORT.recordSince(start);
+        }
     }
 
     @Override
-    public void exportData(LibraryCatalog libraryCatalog) {
-        exportBooks(libraryCatalog);
-        exportUsers(libraryCatalog);
-        exportNotifications(libraryCatalog);
+    public synchronized void exportData(LibraryCatalog libraryCatalog) {
+        long start = System.nanoTime();
+        try {
+            boolean tracked = libraryCatalog == trackedCatalog;
+            long books = libraryCatalog.getBooksVersion();
+            long users = libraryCatalog.getUsersVersion();
+            long subscriptions = libraryCatalog.getSubscriptionsVersion();
+            boolean booksFileUnchanged = tracked && unchanged(PUBLICATIONS_FILE_NAME);
+            long[] previousSegments = booksFileUnchanged && books != booksVersion ? segmentEnds() : new long[0];
+            long[][] writtenSegments = new long[1][];
+
+            Map<String, Callable<Path>> writers = new LinkedHashMap<>();
+            if (!booksFileUnchanged || books != booksVersion) {
+                writers.put(PUBLICATIONS_FILE_NAME, () -> exportBooks(libraryCatalog, previousSegments, writtenSegments));
+            }
+            if (!tracked || !unchanged(USERS_FILE_NAME) || users != usersVersion) {
+                writers.put(USERS_FILE_NAME, () -> exportUsers(libraryCatalog));
+            }
+            if (!tracked || !unchanged(NOTIFICATIONS_FILE_NAME) || subscriptions != subscriptionsVersion) {
+                writers.put(NOTIFICATIONS_FILE_NAME, () -> exportNotifications(libraryCatalog));
+            }
+
+            trackedCatalog = null;
+            writeConcurrently(writers).forEach((fileName, temp) -> replace(temp, fileName));
+            track(libraryCatalog, books, users, subscriptions, writtenSegments[0] == null ? segmentEnds : writtenSegments[0]);
+        } finally {
+            EXPORT.recordSince(start);
+        }
     }
 
-    private void exportBooks(LibraryCatalog libraryCatalog) {
-        Collection<Book> books = libraryCatalog.getBooks();
-        exportToCsv(books, PUBLICATIONS_FILE_NAME);
+    private void track(LibraryCatalog libraryCatalog, long books, long users, long subscriptions, long[] segments) {
+        trackedCatalog = libraryCatalog;
+        booksVersion = books;
+        usersVersion = users;
+        subscriptionsVersion = subscriptions;
+        segmentEnds = segments;
+        for (String fileName : List.of(PUBLICATIONS_FILE_NAME, USERS_FILE_NAME, NOTIFICATIONS_FILE_NAME)) {
+            writtenFiles.put(fileName, FileStamp.of(file(fileName)));
+        }
     }
 
-    private void exportUsers(LibraryCatalog libraryCatalog) {
-        Collection<User> users = libraryCatalog.getUsers();
-        exportToCsv(users, USERS_FILE_NAME);
+    private boolean unchanged(String fileName) {
+        FileStamp stamp = writtenFiles.get(fileName);
+        return stamp != null && stamp.equals(FileStamp.of(file(fileName)));
+    }
+
+    private static Map<String, Path> writeConcurrently(Map<String, Callable<Path>> writers) {
+        Map<String, Future<Path>> tasks = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            writers.forEach((fileName, writer) -> tasks.put(fileName, executor.submit(writer)));
+        }
+        Map<String, Path> temps = new LinkedHashMap<>();
+        for (Map.Entry<String, Future<Path>> task : tasks.entrySet()) {
+            try {
+                temps.put(task.getKey(), task.getValue().get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new DataExportException("Błąd zapisu danych do pliku " + task.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DataExportException("Przerwano zapis pliku " + task.getKey());
+            }
+        }
+        return temps;
     }
 
-    private void exportNotifications(LibraryCatalog libraryCatalog) {
-    try (BufferedWriter writer = new BufferedWriter(new FileWriter(NOTIFICATIONS_FILE_NAME))) {
-        for (Map.Entry<Book, List<User>> entry : libraryCatalog.getBookObservers().entrySet()) {
-            Book book = entry.getKey();
-            List<User> users = entry.getValue();
+    private Path exportBooks(LibraryCatalog libraryCatalog, long[] previousSegments, long[][] writtenSegments) {
+        Path target = file(PUBLICATIONS_FILE_NAME);
+        List<Book> books = libraryCatalog.getBooks();
+        int count = books.size();
+        long[] ends = new long[(count + LibraryCatalog.BOOK_SEGMENT_SIZE - 1) / LibraryCatalog.BOOK_SEGMENT_SIZE];
+        int reusable = Math.min(previousSegments.length, ends.length);
+        try (FileChannel previous = reusable == 0 ? null : FileChannel.open(target, StandardOpenOption.READ)) {
+            Path temp = AtomicFiles.writeTempBinary(target, channel -> {
+                StringBuilder text = new StringBuilder();
+                int segment = 0;
+                while (segment < ends.length) {
+                    int run = segment;
+                    while (run < reusable && libraryCatalog.getBookSegmentVersion(run) <= booksVersion) {
+                        run++;
+                    }
+                    if (run > segment) {
+                        long from = segment == 0 ? 0 : previousSegments[segment - 1];
+                        long shift = channel.position() - from;
+                        copy(previous, from, previousSegments[run - 1] - from, channel);
+                        for (; segment < run; segment++) {
+                            ends[segment] = previousSegments[segment] + shift;
+                        }
+                    } else {
+                        writeSegment(channel, text, books, segment, count);
+                        ends[segment++] = channel.position();
+                    }
+                }
+            });
+            writtenSegments[0] = ends;
+            return temp;
+        } catch (IOException e) {
+            throw new DataExportException("Błąd zapisu danych do pliku " + PUBLICATIONS_FILE_NAME);
+        }
+    }
 
-            String userIds = users.stream()
-                                  .map(User::getId)
-                                  .reduce((id1, id2) -> id1 + "," + id2)
-                                  .orElse("");
+    private static void writeSegment(FileChannel channel, StringBuilder text, List<Book> books, int segment, int count) throws IOException {
+        text.setLength(0);
+        int end = Math.min(count, (segment + 1) * LibraryCatalog.BOOK_SEGMENT_SIZE);
+        for (int position = segment * LibraryCatalog.BOOK_SEGMENT_SIZE; position < end; position++) {
+            books.get(position).writeCsv(text);
+            text.append(System.lineSeparator());
+        }
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(text));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
 
-            String csvLine = book.title() + ";[" + userIds + "]";
-            writer.write(csvLine);
-            writer.newLine();
+    private static void copy(FileChannel source, long position, long length, FileChannel target) throws IOException {
+        while (length > 0) {
+            long copied = source.transferTo(position, length, target);
+            position += copied;
+            length -= copied;
         }
-    } catch (IOException e) {
-        throw new DataExportException("Błąd zapisu powiadomień do pliku " + NOTIFICATIONS_FILE_NAME);
     }
-}
 
-    private <T extends CsvConvertible> void exportToCsv(Collection<T> collection, String fileName) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName))) {
-            for (T item : collection) {
-                writer.write(item.toCsv());
-                writer.newLine();
+    private long[] segmentEnds() {
+        if (segmentEnds == null) {
+            try {
+                segmentEnds = scanSegments(file(PUBLICATIONS_FILE_NAME));
+            } catch (IOException e) {
+                segmentEnds = new long[0];
             }
-        } catch (IOException e) {
-            throw new DataExportException("Błąd zapisu danych do pliku " + fileName);
         }
+        return segmentEnds;
     }
 
-    private void importBooks(LibraryCatalog libraryCatalog) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(PUBLICATIONS_FILE_NAME))) {
-            reader.lines()
-                  .map(this::createBookFromString)
-                  .forEach(libraryCatalog::addBook);
-        } catch (IOException e) {
-            throw new DataImportException("Błąd odczytu pliku " + PUBLICATIONS_FILE_NAME);
+    private static long[] scanSegments(Path file) throws IOException {
+        LongStream.Builder ends = LongStream.builder();
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long offset = 0;
+            int lines = 0;
+            boolean content = false;
+            while (channel.read(buffer.clear()) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    offset++;
+                    if (b == '\n') {
+                        if (content && ++lines % LibraryCatalog.BOOK_SEGMENT_SIZE == 0) {
+                            ends.add(offset);
+                        }
+                        content = false;
+                    } else if (b != '\r') {
+                        content = true;
+                    }
+                }
+            }
+            if (!content && lines % LibraryCatalog.BOOK_SEGMENT_SIZE != 0) {
+                ends.add(offset);
+            }
         }
+        return ends.build().toArray();
     }
 
-    private Book createBookFromString(String csvText) {
-        String[] data = csvText.split(";");
-        return new Book(data[0], data[1], Integer.parseInt(data[2]), BookStatus.valueOf(data[3]));
+    private record FileStamp(long size, FileTime modified) {
+        static FileStamp of(Path file) {
+            try {
+                return new FileStamp(Files.size(file), Files.getLastModifiedTime(file));
+            } catch (IOException e) {
+                return null;
+            }
+        }
     }
 
-    private void importUsers(LibraryCatalog libraryCatalog) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(USERS_FILE_NAME))) {
-            reader.lines()
-                  .map((String csvText) -> createUserFromString(csvText, libraryCatalog))
-                  .forEach(libraryCatalog::addUser);
+    private Path exportUsers(LibraryCatalog libraryCatalog) {
+        if (!(libraryCatalog.getUserLoader() instanceof CsvUserLoader loader)) {
+            Collection<User> users = libraryCatalog.getUsers();
+            return exportToCsv(users, USERS_FILE_NAME);
+        }
+        try {
+            return AtomicFiles.writeTemp(file(USERS_FILE_NAME), writer -> {
+                for (String id : loader.userIds()) {
+                    User user = libraryCatalog.findLoadedUser(id);
+                    String line = user == null ? loader.line(id) : null;
+                    if (line != null) {
+                        writer.write(line);
+                    } else {
+                        (user != null ? user : libraryCatalog.findLoadedUser(id)).writeCsv(writer);
+                    }
+                    writer.newLine();
+                }
+                for (User user : libraryCatalog.getAddedUsers()) {
+                    user.writeCsv(writer);
+                    writer.newLine();
+                }
+            });
         } catch (IOException e) {
-            throw new DataImportException("Błąd odczytu pliku " + USERS_FILE_NAME);
+            throw new DataExportException("Błąd zapisu danych do pliku " + USERS_FILE_NAME);
         }
     }
 
-    private User createUserFromString(String csvText, LibraryCatalog libraryCatalog) {
-        String[] data = csvText.split(";");
+    private Path exportNotifications(LibraryCatalog libraryCatalog) {
+        try {
+            return AtomicFiles.writeTemp(file(NOTIFICATIONS_FILE_NAME), libraryCatalog::writeCsv);
+        } catch (IOException e) {
+            throw new DataExportException("Błąd zapisu powiadomień do pliku " + NOTIFICATIONS_FILE_NAME);
+        }
+    }
 
-        String userType = data[0];
-        String id = data[1];
-        String firstName = data[2];
-        String lastName = data[3];
-        String email = data[4];
+    private <T extends CsvConvertible> Path exportToCsv(Collection<T> collection, String fileName) {
+        try {
+            return AtomicFiles.writeTemp(file(fileName), writer -> {
+                for (T item : collection) {
+                    item.writeCsv(writer);
+                    writer.newLine();
+                }
+            });
+        } catch (IOException e) {
+            throw new DataExportException("Błąd zapisu danych do pliku " + fileName);
+        }
+    }
 
-        String booksData = data.length > 5 ? data[5] : "";
-        List<Book> books = parseBooksList(booksData, libraryCatalog);
+    private void replace(Path temp, String fileName) {
+        try {
+            AtomicFiles.replace(temp, file(fileName));
+        } catch (IOException e) {
+            throw new DataExportException("Błąd podmiany pliku " + fileName);
+        }
+    }
 
-        User user = UserFactory.createUser(userType, id, firstName, lastName, email);
+    private Path file(String fileName) {
+        return directory.resolve(fileName);
+    }
 
-        for (Book book : books) {
-            user.addBook(book);
+    private <T> void importRecords(String fileName, Function<CsvReader, T> parser, Consumer<T> consumer) {
+        try {
+            if (importMode != ImportMode.SEQUENTIAL) {
+                MappedCsvReader.read(file(fileName), parser).forEach(consumer);
+            } else {
+                CsvReader csvReader = new CsvReader();
+                try (BufferedReader reader = Files.newBufferedReader(file(fileName), StandardCharsets.UTF_8)) {
+                    reader.lines()
+                          .filter(line -> !line.isEmpty())
+                          .map(line -> parser.apply(csvReader.reset(line)))
+                          .forEach(consumer);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            throw new DataImportException("Błąd odczytu pliku " + fileName);
         }
+    }
 
-        return user;
+    private void importBooks(LibraryCatalog libraryCatalog) {
+        importRecords(PUBLICATIONS_FILE_NAME, this::createBook, libraryCatalog::addBook);
+    }
+
+    private Book createBook(CsvReader csv) {
+        return new Book(csv.readField(), csv.readField(), csv.readInt(), csv.readEnum(BookStatus.values()));
     }
 
-    private List<Book> parseBooksList(String booksData, LibraryCatalog libraryCatalog) {
-        List<Book> books = new ArrayList<>();
+    private void importUsers(LibraryCatalog libraryCatalog) {
+        importRecords(USERS_FILE_NAME, (CsvReader csv) -> createUser(csv, libraryCatalog), libraryCatalog::addUser);
+    }
 
-        if (!booksData.isEmpty()) {
-            String[] bookTitles = booksData.replace("[", "").replace("]", "").split(",");
+    static User createUser(CsvReader csv, LibraryCatalog libraryCatalog) {
+        String userType = csv.readField();
+        String id = csv.readField();
+        String firstName = csv.readField();
+        String lastName = csv.readField();
+        String email = csv.readField();
 
-            for (String title : bookTitles) {
-                title = title.trim();
+        User user = UserFactory.createUser(userType, id, firstName, lastName, email);
 
-                Book book = findBookByTitle(title, libraryCatalog);
-                if (book != null) {
-                    books.add(book);
-                }
+        csv.readList(title -> {
+            int handle = libraryCatalog.handleOf(title);
+            if (handle >= 0) {
+                user.addBook(handle);
             }
-        }
+        });
 
-        return books;
+        return user;
     }
 
-    private Book findBookByTitle(String title, LibraryCatalog libraryCatalog) {
+    private static Book findBookByTitle(String title, LibraryCatalog libraryCatalog) {
         return libraryCatalog.findBook(title);
     }
 
     private void importObservers(LibraryCatalog libraryCatalog) {
-        File file = new File(NOTIFICATIONS_FILE_NAME);
+        File file = file(NOTIFICATIONS_FILE_NAME).toFile();
         if (!file.exists() || file.length() == 0) {
             libraryCatalog.setBookObservers(new HashMap<>());
             System.out.println("Notifications file is empty or does not exist. Initializing with an empty observers map.");
         } else {
-            try (BufferedReader reader = new BufferedReader(new FileReader(NOTIFICATIONS_FILE_NAME))) {
-            reader.lines()
-                  .map((String csvText) -> createObserverFromString(csvText, libraryCatalog))
-                  .forEach(entry -> {
-                      Book book = entry.getKey();
-                      List<User> users = entry.getValue();
-                      users.forEach(user -> libraryCatalog.addObserverToBook(book, user));
-                  });
-            } catch (IOException e) {
-                throw new DataImportException("Błąd odczytu pliku " + NOTIFICATIONS_FILE_NAME);
-            }
+            importRecords(NOTIFICATIONS_FILE_NAME,
+                    (CsvReader csv) -> createObserver(csv, libraryCatalog),
+                    entry -> {
+                        Book book = entry.getKey();
+                        List<User> users = entry.getValue();
+                        users.forEach(user -> libraryCatalog.addObserverToBook(book, user));
+                    });
         }
 
     }
 
-    private Map.Entry<Book, List<User>> createObserverFromString(String csvText, LibraryCatalog libraryCatalog) {
-        String[] data = csvText.split(";");
-        String bookTitle = data[0];
-        String userIds = data[1];
+    private Map.Entry<Book, List<User>> createObserver(CsvReader csv, LibraryCatalog libraryCatalog) {
+        String bookTitle = csv.readField();
 
         Book book = findBookByTitle(bookTitle, libraryCatalog);
         if (book == null) {
@@ -175,20 +393,16 @@ public class CsvFileManager implements FileManager {
         }
 
         List<User> users = new ArrayList<>();
-        String[] ids = userIds.replace("[", "").replace("]", "").split(",");
-        for (String id : ids) {
-            User user = findUserById(id.trim(), libraryCatalog);
+        csv.readList(id -> {
+            User user = findUserById(id, libraryCatalog);
             if (user != null) {
                 users.add(user);
             }
-        }
+        });
 
         return new AbstractMap.SimpleEntry<>(book, users);
     }
     private User findUserById(String id, LibraryCatalog libraryCatalog) {
-        return libraryCatalog.getUsers().stream()
-                                    .filter(user -> user.getId().equals(id))
-                                    .findFirst()
-                                    .orElse(null);
+        return libraryCatalog.findUser(id);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,194 @@
+package io.file;
+
+import exceptions.DataImportException;
+import model.CsvConvertible;
+
+import java.util.function.Consumer;
+
+public class CsvReader {
+    private final StringBuilder unescaped = new StringBuilder();
+    private CharSequence text;
+    private int position;
+    private int end;
+    private boolean exhausted;
+
+    public CsvReader reset(CharSequence text) {
+        return reset(text, 0, text.length());
+    }
+
+    public CsvReader reset(CharSequence text, int start, int end) {
+        this.text = text;
+        this.position = start;
+        this.end = end;
+        this.exhausted = false;
+        return this;
+    }
+
+    public boolean hasMoreFields() {
+        return !exhausted;
+    }
+
+    public String readField() {
+        requireField();
+        String value;
+        if (position < end && text.charAt(position) == CsvConvertible.QUOTE) {
+            value = readQuoted();
+        } else {
+            int start = position;
+            while (position < end && text.charAt(position) != CsvConvertible.SEPARATOR) {
+                position++;
+            }
+            value = text.subSequence(start, position).toString();
+        }
+        skipSeparator();
+        return value;
+    }
+
+    public int readInt() {
+        requireField();
+        int start = position;
+        boolean negative = position < end && text.charAt(position) == '-';
+        if (negative) {
+            position++;
+        }
+        long value = 0;
+        while (position < end && text.charAt(position) != CsvConvertible.SEPARATOR) {
+            char c = text.charAt(position++);
+            if (c < '0' || c > '9' || value > Integer.MAX_VALUE) {
+                throw malformed("liczba", start);
+            }
+            value = value * 10 + (c - '0');
+        }
+        if (position == start + (negative ? 1 : 0) || value > Integer.MAX_VALUE + (negative ? 1L : 0L)) {
+            throw malformed("liczba", start);
+        }
+        skipSeparator();
+        return (int) (negative ? -value : value);
+    }
+
+    public <E extends Enum<E>> E readEnum(E[] values) {
+        requireField();
+        int start = position;
+        while (position < end && text.charAt(position) != CsvConvertible.SEPARATOR) {
+            position++;
+        }
+        for (E value : values) {
+            if (matches(value.name(), start, position)) {
+                skipSeparator();
+                return value;
+            }
+        }
+        throw malformed("wartość wyliczeniowa", start);
+    }
+
+    public void readList(Consumer<String> items) {
+        if (exhausted) {
+            return;
+        }
+        int start = position;
+        skipSpaces();
+        if (position >= end || text.charAt(position) != '[') {
+            throw malformed("lista", start);
+        }
+        position++;
+        skipSpaces();
+        if (position < end && text.charAt(position) == ']') {
+            position++;
+        } else {
+            while (true) {
+                skipSpaces();
+                items.accept(readListItem());
+                skipSpaces();
+                if (position >= end) {
+                    throw malformed("lista", start);
+                }
+                char c = text.charAt(position++);
+                if (c == ']') {
+                    break;
+                }
+                if (c != ',') {
+                    throw malformed("lista", start);
+                }
+            }
+        }
+        skipSpaces();
+        skipSeparator();
+    }
+
+    private String readListItem() {
+        if (position < end && text.charAt(position) == CsvConvertible.QUOTE) {
+            return readQuoted();
+        }
+        int start = position;
+        while (position < end && text.charAt(position) != ',' && text.charAt(position) != ']') {
+            position++;
+        }
+        int itemEnd = position;
+        while (itemEnd > start && text.charAt(itemEnd - 1) == ' ') {
+            itemEnd--;
+        }
+        return text.subSequence(start, itemEnd).toString();
+    }
+
+    private String readQuoted() {
+        int start = position++;
+        int contentStart = position;
+        unescaped.setLength(0);
+        while (true) {
+            if (position >= end) {
+                throw malformed("cudzysłów", start);
+            }
+            char c = text.charAt(position++);
+            if (c == CsvConvertible.QUOTE) {
+                if (position < end && text.charAt(position) == CsvConvertible.QUOTE) {
+                    unescaped.append(text, contentStart, position);
+                    contentStart = ++position;
+                } else {
+                    break;
+                }
+            }
+        }
+        if (unescaped.isEmpty()) {
+            return text.subSequence(contentStart, position - 1).toString();
+        }
+        return unescaped.append(text, contentStart, position - 1).toString();
+    }
+
+    private void requireField() {
+        if (exhausted) {
+            throw malformed("pole", position);
+        }
+    }
+
+    private void skipSeparator() {
+        if (position < end && text.charAt(position) == CsvConvertible.SEPARATOR) {
+            position++;
+        } else if (position >= end) {
+            exhausted = true;
+        } else {
+            throw malformed("separator", position);
+        }
+    }
+
+    private void skipSpaces() {
+        while (position < end && text.charAt(position) == ' ') {
+            position++;
+        }
+    }
+
+    private boolean matches(String name, int start, int stop) {
+        if (name.length() != stop - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != text.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private DataImportException malformed(String expected, int at) {
+        return new DataImportException("Niepoprawny wiersz CSV (oczekiwano: " + expected + ", pozycja " + at + "): " + text.subSequence(at, end));
+    }
+}
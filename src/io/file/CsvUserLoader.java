@@ -0,0 +1,193 @@
+package io.file;
+
+import exceptions.DataImportException;
+import model.CsvConvertible;
+import model.LibraryCatalog;
+import model.UserLoader;
+import model.users.User;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class CsvUserLoader implements UserLoader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final LibraryCatalog libraryCatalog;
+    private final Path usersFile;
+    private final FileChannel users;
+    private final Map<String, Integer> lines = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private long[] lineStarts = new long[16];
+    private int[] lineLengths = new int[16];
+    private final Map<String, List<String>> subscriptionsByUser = new HashMap<>();
+    private final Map<String, List<String>> subscribersByTitle = new HashMap<>();
+
+    public CsvUserLoader(LibraryCatalog libraryCatalog, Path usersFile, Path notificationsFile) {
+        this.libraryCatalog = libraryCatalog;
+        this.usersFile = usersFile;
+        try {
+            users = FileChannel.open(usersFile, StandardOpenOption.READ);
+            indexUsers();
+        } catch (IOException e) {
+            throw new DataImportException("Błąd odczytu pliku " + usersFile.getFileName());
+        }
+        if (Files.exists(notificationsFile)) {
+            indexSubscriptions(notificationsFile);
+        }
+    }
+
+    @Override
+    public List<String> userIds() {
+        return Collections.unmodifiableList(ids);
+    }
+
+    @Override
+    public int ordinal(String id) {
+        return lines.getOrDefault(id, -1);
+    }
+
+    @Override
+    public User loadUser(String id) {
+        String line = lines.containsKey(id) ? line(id) : null;
+        return line == null ? null : CsvFileManager.createUser(new CsvReader().reset(line), libraryCatalog);
+    }
+
+    public String line(String id) {
+        int line = lines.get(id);
+        ByteBuffer bytes = ByteBuffer.allocate(lineLengths[line]);
+        try {
+            while (bytes.hasRemaining()) {
+                if (users.read(bytes, lineStarts[line] + bytes.position()) < 0) {
+                    throw new DataImportException("Nieoczekiwany koniec pliku " + usersFile.getFileName());
+                }
+            }
+        } catch (ClosedChannelException e) {
+            return null;
+        } catch (IOException e) {
+            throw new DataImportException("Błąd odczytu pliku " + usersFile.getFileName());
+        }
+        return new String(bytes.array(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        try {
+            users.close();
+        } catch (IOException e) {
+            throw new DataImportException("Błąd zamykania pliku " + usersFile.getFileName());
+        }
+    }
+
+    @Override
+    public Collection<String> subscriptions(String userId) {
+        return subscriptionsByUser.getOrDefault(userId, List.of());
+    }
+
+    @Override
+    public Collection<String> subscribers(String title) {
+        return subscribersByTitle.getOrDefault(title.toLowerCase(Locale.ROOT), List.of());
+    }
+
+    @Override
+    public Collection<String> subscribedTitles() {
+        return Collections.unmodifiableSet(subscribersByTitle.keySet());
+    }
+
+    private void indexUsers() throws IOException {
+        CsvReader csv = new CsvReader();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteArrayOutputStream id = new ByteArrayOutputStream();
+        long offset = 0;
+        long lineStart = 0;
+        int field = 0;
+        boolean quoted = false;
+        byte previous = 0;
+        while (users.read(buffer.clear(), offset) > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b == '\n') {
+                    long lineEnd = previous == '\r' ? offset - 1 : offset;
+                    addLine(csv, id, field, lineStart, lineEnd);
+                    lineStart = offset + 1;
+                    field = 0;
+                    quoted = false;
+                    id.reset();
+                } else if (b == CsvConvertible.SEPARATOR && !quoted) {
+                    field++;
+                } else {
+                    if (b == CsvConvertible.QUOTE) {
+                        quoted = !quoted;
+                    }
+                    if (field == 1 && b != '\r') {
+                        id.write(b);
+                    }
+                }
+                previous = b;
+                offset++;
+            }
+        }
+        addLine(csv, id, field, lineStart, offset);
+    }
+
+    private void addLine(CsvReader csv, ByteArrayOutputStream id, int field, long lineStart, long lineEnd) {
+        if (lineEnd <= lineStart) {
+            return;
+        }
+        if (field == 0) {
+            throw new DataImportException("Niepoprawny wiersz CSV (oczekiwano: pole, pozycja " + lineStart + ")");
+        }
+        String key = csv.reset(id.toString(StandardCharsets.UTF_8)).readField();
+        if (lines.containsKey(key)) {
+            return;
+        }
+        int line = lines.size();
+        if (line == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, line * 2);
+            lineLengths = Arrays.copyOf(lineLengths, line * 2);
+        }
+        lineStarts[line] = lineStart;
+        lineLengths[line] = Math.toIntExact(lineEnd - lineStart);
+        lines.put(key, line);
+        ids.add(key);
+    }
+
+    private void indexSubscriptions(Path notificationsFile) {
+        CsvReader csv = new CsvReader();
+        try (BufferedReader reader = Files.newBufferedReader(notificationsFile, StandardCharsets.UTF_8)) {
+            reader.lines()
+                  .filter(line -> !line.isEmpty())
+                  .forEach(line -> {
+                      csv.reset(line);
+                      String title = csv.readField();
+                      if (libraryCatalog.findBook(title) == null) {
+                          throw new DataImportException("Książka o tytule " + title + " nie istnieje w katalogu.");
+                      }
+                      List<String> subscribers = subscribersByTitle.computeIfAbsent(title.toLowerCase(Locale.ROOT), key -> new ArrayList<>());
+                      csv.readList(id -> {
+                          subscribers.add(id);
+                          subscriptionsByUser.computeIfAbsent(id, key -> new ArrayList<>()).add(title);
+                      });
+                  });
+        } catch (IOException | UncheckedIOException e) {
+            throw new DataImportException("Błąd odczytu pliku " + notificationsFile.getFileName());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package io.file;
+
+import java.nio.file.Path;
+
+public class FormatConverter {
+
+    public static void convert(FileManager source, FileManager target) {
+        target.exportData(source.importData());
+    }
+
+    public static FileManager forFormat(String format, Path directory) {
+        return switch (format.toLowerCase()) {
+            case "csv" -> new CsvFileManager(directory, ImportMode.PARALLEL);
+            case "json" -> new JsonFileManager(directory);
+            case "bin", "binary" -> new BinaryFileManager(directory);
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: FormatConverter <csv|json|bin> <csv|json|bin> [directory]");
+            return;
+        }
+        Path directory = args.length > 2 ? Path.of(args[2]) : Path.of("");
+        convert(forFormat(args[0], directory), forFormat(args[1], directory));
+        System.out.println("Converted " + args[0] + " to " + args[1] + ".");
+    }
+}
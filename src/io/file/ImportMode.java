@@ -0,0 +1,7 @@
+package io.file;
+
+public enum ImportMode {
+    SEQUENTIAL,
+    PARALLEL,
+    LAZY
+}
@@ -0,0 +1,329 @@
+package io.file;
+
+import exceptions.DataExportException;
+import exceptions.DataImportException;
+import model.CatalogListener;
+import model.CsvConvertible;
+import model.LibraryCatalog;
+import model.publications.Book;
+import model.publications.BookStatus;
+import model.users.User;
+import service.factory.UserFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+public class Journal implements CatalogListener, Closeable {
+    private static final int CHECKSUM_LENGTH = 8;
+
+    private static final String ADD_BOOK = "ADD_BOOK";
+    private static final String UPDATE_BOOK = "UPDATE_BOOK";
+    private static final String ADD_USER = "ADD_USER";
+    private static final String BORROW = "BORROW";
+    private static final String RETURN = "RETURN";
+    private static final String SUBSCRIBE = "SUBSCRIBE";
+    private static final String UNSUBSCRIBE = "UNSUBSCRIBE";
+
+    private Path file;
+    private FileChannel channel;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final StringBuilder record = new StringBuilder();
+    private final CRC32 checksum = new CRC32();
+    private final ThreadLocal<long[]> lastAppended = ThreadLocal.withInitial(() -> new long[1]);
+    private StringBuilder pending = new StringBuilder();
+    private StringBuilder writing = new StringBuilder();
+    private long appended;
+    private volatile long durable;
+    private volatile boolean failed;
+
+    public Journal(Path file) throws IOException {
+        this.file = file;
+        this.channel = openChannel(file);
+    }
+
+    public static int replay(Path file, LibraryCatalog libraryCatalog) {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        int applied = 0;
+        CsvReader csv = new CsvReader();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            String line = reader.readLine();
+            while (line != null) {
+                lineNumber++;
+                String next = reader.readLine();
+                if (!line.isEmpty()) {
+                    String payload = verify(line);
+                    if (payload == null) {
+                        if (next == null) {
+                            break;
+                        }
+                        throw new DataImportException("Uszkodzony wpis dziennika zmian " + file + " w linii " + lineNumber);
+                    }
+                    try {
+                        apply(csv.reset(payload), libraryCatalog);
+                    } catch (DataImportException e) {
+                        throw new DataImportException(e.getMessage() + " (" + file + ", linia " + lineNumber + ")");
+                    }
+                    applied++;
+                }
+                line = next;
+            }
+        } catch (IOException e) {
+            throw new DataImportException("Błąd odczytu dziennika zmian " + file);
+        }
+        return applied;
+    }
+
+    private static String verify(String line) {
+        if (line.length() <= CHECKSUM_LENGTH || line.charAt(CHECKSUM_LENGTH) != CsvConvertible.SEPARATOR) {
+            return null;
+        }
+        String payload = line.substring(CHECKSUM_LENGTH + 1);
+        CRC32 crc = new CRC32();
+        crc.update(payload.getBytes(StandardCharsets.UTF_8));
+        try {
+            return Long.parseLong(line, 0, CHECKSUM_LENGTH, 16) == crc.getValue() ? payload : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void apply(CsvReader csv, LibraryCatalog libraryCatalog) {
+        String operation = csv.readField();
+        switch (operation) {
+            case ADD_BOOK -> {
+                Book book = readBook(csv);
+                if (libraryCatalog.findBook(book.title()) == null) {
+                    libraryCatalog.addBook(book);
+                }
+            }
+            case UPDATE_BOOK -> {
+                Book book = readBook(csv);
+                if (libraryCatalog.findBook(book.title()) == null) {
+                    libraryCatalog.addBook(book);
+                } else {
+                    libraryCatalog.updateBook(book);
+                }
+            }
+            case ADD_USER -> {
+                User user = UserFactory.createUser(csv.readField(), csv.readField(), csv.readField(), csv.readField(), csv.readField());
+                if (libraryCatalog.findUser(user.getId()) == null) {
+                    libraryCatalog.addUser(user);
+                }
+            }
+            case BORROW, RETURN, SUBSCRIBE, UNSUBSCRIBE -> {
+                User user = libraryCatalog.findUser(csv.readField());
+                Book book = libraryCatalog.findBook(csv.readField());
+                if (user == null || book == null) {
+                    return;
+                }
+                switch (operation) {
+                    case BORROW -> restoreBorrow(libraryCatalog, user, book);
+                    case RETURN -> restoreReturn(libraryCatalog, user, book);
+                    case SUBSCRIBE -> libraryCatalog.addObserverToBook(book, user);
+                    default -> libraryCatalog.removeObserverFromBook(book, user);
+                }
+            }
+            default -> throw new DataImportException("Nieznana operacja w dzienniku zmian: " + operation);
+        }
+    }
+
+    private static void restoreBorrow(LibraryCatalog libraryCatalog, User user, Book book) {
+        libraryCatalog.updateBook(book.withStatus(BookStatus.BORROWED));
+        int handle = libraryCatalog.handleOf(book.title());
+        if (handle >= 0 && !user.hasBook(handle)) {
+            user.restoreBook(handle);
+            libraryCatalog.markUsersChanged();
+        }
+    }
+
+    private static void restoreReturn(LibraryCatalog libraryCatalog, User user, Book book) {
+        int handle = libraryCatalog.handleOf(book.title());
+        if (handle >= 0 && user.removeBook(handle)) {
+            libraryCatalog.markUsersChanged();
+        }
+        libraryCatalog.updateBook(book.withStatus(BookStatus.AVAILABLE));
+    }
+
+    private static Book readBook(CsvReader csv) {
+        return new Book(csv.readField(), csv.readField(), csv.readInt(), csv.readEnum(BookStatus.values()));
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        appendBook(ADD_BOOK, book);
+    }
+
+    @Override
+    public void bookUpdated(Book book) {
+        appendBook(UPDATE_BOOK, book);
+    }
+
+    @Override
+    public void userAdded(User user) {
+        synchronized (this) {
+            record.append(ADD_USER).append(CsvConvertible.SEPARATOR);
+            appendFields(user.getClass().getSimpleName(), user.getId(), user.getFirstName(), user.getLastName(), user.getEmail());
+        }
+    }
+
+    @Override
+    public void bookBorrowed(User user, Book book) {
+        appendUserAction(BORROW, user, book);
+    }
+
+    @Override
+    public void bookReturned(User user, Book book) {
+        appendUserAction(RETURN, user, book);
+    }
+
+    @Override
+    public void observerAdded(User user, Book book) {
+        appendUserAction(SUBSCRIBE, user, book);
+    }
+
+    @Override
+    public void observerRemoved(User user, Book book) {
+        appendUserAction(UNSUBSCRIBE, user, book);
+    }
+
+    private synchronized void appendBook(String operation, Book book) {
+        record.append(operation).append(CsvConvertible.SEPARATOR);
+        try {
+            book.writeCsv(record);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        commitRecord();
+    }
+
+    private synchronized void appendUserAction(String operation, User user, Book book) {
+        record.append(operation).append(CsvConvertible.SEPARATOR);
+        appendFields(user.getId(), book.title());
+    }
+
+    private void appendFields(String... fields) {
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    record.append(CsvConvertible.SEPARATOR);
+                }
+                CsvConvertible.appendField(record, fields[i]);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        commitRecord();
+    }
+
+    private void commitRecord() {
+        checksum.reset();
+        checksum.update(StandardCharsets.UTF_8.encode(CharBuffer.wrap(record)));
+        String hex = Long.toHexString(checksum.getValue());
+        pending.repeat('0', CHECKSUM_LENGTH - hex.length()).append(hex).append(CsvConvertible.SEPARATOR)
+                .append(record).append('\n');
+        record.setLength(0);
+        lastAppended.get()[0] = ++appended;
+    }
+
+    @Override
+    public void awaitDurable() {
+        long[] last = lastAppended.get();
+        long sequence = last[0];
+        last[0] = 0;
+        if (sequence == 0 || durable >= sequence) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (durable < sequence) {
+                write();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void flush() {
+        writeLock.lock();
+        try {
+            write();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void write() {
+        if (failed) {
+            throw new DataExportException("Błąd zapisu dziennika zmian " + file);
+        }
+        long through;
+        synchronized (this) {
+            StringBuilder swap = writing;
+            writing = pending;
+            pending = swap;
+            through = appended;
+        }
+        try {
+            if (!writing.isEmpty()) {
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(writing));
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(false);
+            }
+            durable = through;
+        } catch (IOException e) {
+            failed = true;
+            throw new DataExportException("Błąd zapisu dziennika zmian " + file);
+        } finally {
+            writing.setLength(0);
+        }
+    }
+
+    public void rotate(Path nextFile) {
+        writeLock.lock();
+        try {
+            if (!failed) {
+                write();
+            }
+            FileChannel next = openChannel(nextFile);
+            channel.close();
+            channel = next;
+            file = nextFile;
+            if (failed) {
+                synchronized (this) {
+                    pending.setLength(0);
+                    durable = appended;
+                }
+                failed = false;
+            }
+        } catch (IOException e) {
+            throw new DataExportException("Błąd przełączenia dziennika zmian na " + nextFile);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static FileChannel openChannel(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
@@ -0,0 +1,174 @@
+package io.file;
+
+import exceptions.DataExportException;
+import exceptions.DataImportException;
+import model.LibraryCatalog;
+import service.metrics.LibraryMetrics;
+import service.metrics.OperationStats;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class JournalingFileManager implements FileManager {
+    private static final String JOURNAL_FILE_NAME = "Library.journal";
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    private static final OperationStats SNAPSHOT = LibraryMetrics.operation("journal.snapshot");
+
+    private final FileManager delegate;
+    private final Path directory;
+    private final String journalFileName;
+    private Journal journal;
+    private long segment;
+    private ScheduledExecutorService snapshotScheduler;
+
+    public JournalingFileManager(FileManager delegate) {
+        this(delegate, Path.of(JOURNAL_FILE_NAME));
+    }
+
+    public JournalingFileManager(FileManager delegate, Path journalFile) {
+        this.delegate = delegate;
+        this.directory = journalFile.toAbsolutePath().getParent();
+        this.journalFileName = journalFile.getFileName().toString();
+    }
+
+    @Override
+    public LibraryCatalog importData() {
+        LibraryCatalog libraryCatalog = delegate.importData();
+        int replayed = 0;
+        long firstUncovered = readCheckpoint();
+        segment = Math.max(segment, firstUncovered - 1);
+        for (Path segmentFile : listSegments()) {
+            long number = segmentNumber(segmentFile);
+            if (number < firstUncovered) {
+                delete(segmentFile);
+                continue;
+            }
+            replayed += Journal.replay(segmentFile, libraryCatalog);
+            segment = Math.max(segment, number);
+        }
+        if (replayed > 0) {
+            System.out.println("Replayed " + replayed + " journal entries.");
+        }
+        try {
+            if (journal == null) {
+                journal = new Journal(segmentFile(++segment));
+            }
+        } catch (IOException e) {
+            throw new DataImportException("Błąd otwarcia dziennika zmian " + journalFileName);
+        }
+        libraryCatalog.addCatalogListener(journal);
+        return libraryCatalog;
+    }
+
+    @Override
+    public void exportData(LibraryCatalog libraryCatalog) {
+        if (journal == null) {
+            delegate.exportData(libraryCatalog);
+        } else {
+            snapshot(libraryCatalog);
+        }
+    }
+
+    public synchronized void snapshot(LibraryCatalog libraryCatalog) {
+        long start = System.nanoTime();
+        try {
+            List<Path> coveredSegments = listSegments();
+            long firstUncovered = ++segment;
+            journal.rotate(segmentFile(firstUncovered));
+            delegate.exportData(libraryCatalog);
+            writeCheckpoint(firstUncovered);
+            for (Path segmentFile : coveredSegments) {
+                delete(segmentFile);
+            }
+        } finally {
+            SNAPSHOT.recordSince(start);
+        }
+    }
+
+    public synchronized void scheduleSnapshots(LibraryCatalog libraryCatalog, Duration interval) {
+        if (snapshotScheduler == null) {
+            snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "snapshot-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        snapshotScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot(libraryCatalog);
+            } catch (DataExportException e) {
+                System.out.println("Error writing snapshot: " + e.getMessage());
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private long readCheckpoint() {
+        Path file = checkpointFile();
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(Files.readString(file).trim());
+        } catch (IOException | NumberFormatException e) {
+            throw new DataImportException("Błąd odczytu punktu kontrolnego dziennika zmian " + file);
+        }
+    }
+
+    private void writeCheckpoint(long firstUncovered) {
+        Path file = checkpointFile();
+        try {
+            AtomicFiles.replace(AtomicFiles.writeTemp(file, writer -> writer.write(Long.toString(firstUncovered))), file);
+        } catch (IOException e) {
+            throw new DataExportException("Błąd zapisu punktu kontrolnego dziennika zmian " + file);
+        }
+    }
+
+    private static void delete(Path segmentFile) {
+        try {
+            Files.deleteIfExists(segmentFile);
+        } catch (IOException e) {
+            throw new DataExportException("Błąd usuwania dziennika zmian " + segmentFile);
+        }
+    }
+
+    private Path checkpointFile() {
+        return directory.resolve(journalFileName + CHECKPOINT_SUFFIX);
+    }
+
+    private List<Path> listSegments() {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, journalFileName + ".*")) {
+            for (Path file : files) {
+                if (segmentNumber(file) > 0) {
+                    segments.add(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new DataImportException("Błąd odczytu katalogu dziennika zmian " + directory);
+        }
+        segments.sort(Comparator.comparingLong(this::segmentNumber));
+        return segments;
+    }
+
+    private Path segmentFile(long number) {
+        return directory.resolve(journalFileName + "." + number);
+    }
+
+    private long segmentNumber(Path file) {
+        String suffix = file.getFileName().toString().substring(journalFileName.length() + 1);
+        try {
+            return Long.parseLong(suffix);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
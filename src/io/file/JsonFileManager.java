@@ -1,73 +1,279 @@
 package io.file;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamWriteFeature;
 import exceptions.DataExportException;
 import exceptions.DataImportException;
-import model.JsonConvertible;
 import model.LibraryCatalog;
 import model.publications.Book;
+import model.publications.BookStatus;
 import model.users.User;
+import service.factory.UserFactory;
+import service.metrics.LibraryMetrics;
+import service.metrics.OperationStats;
 
-import java.io.*;
-import java.util.Collection;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class JsonFileManager implements FileManager {
     private static final String PUBLICATIONS_FILE_NAME = "Library.json";
     private static final String USERS_FILE_NAME = "Library_users.json";
+    private static final String NOTIFICATIONS_FILE_NAME = "Notifications.json";
+    private static final OperationStats IMPORT = LibraryMetrics.operation("json.import");
+    private static final OperationStats EXPORT = LibraryMetrics.operation("json.export");
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonFactory jsonFactory = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+    private final Path directory;
+
+    public JsonFileManager() {
+        this(Path.of(""));
+    }
+
+    public JsonFileManager(Path directory) {
+        this.directory = directory;
+    }
+
+    private interface RecordReader {
+        void read(JsonParser parser) throws IOException;
+    }
+
+    private interface RecordWriter<T> {
+        void write(JsonGenerator generator, T item) throws IOException;
+    }
 
     @Override
     public LibraryCatalog importData() {
-        LibraryCatalog libraryCatalog = new LibraryCatalog();
-        importBooks(libraryCatalog);
-        importUsers(libraryCatalog);
-        return libraryCatalog;
+        long start = System.nanoTime();
+        try {
+            LibraryCatalog libraryCatalog = new LibraryCatalog();
+            importRecords(PUBLICATIONS_FILE_NAME, parser -> libraryCatalog.addBook(readBook(parser)));
+            importRecords(USERS_FILE_NAME, parser -> libraryCatalog.addUser(readUser(parser, libraryCatalog)));
+            if (Files.exists(file(NOTIFICATIONS_FILE_NAME))) {
+                importRecords(NOTIFICATIONS_FILE_NAME, parser -> readObservers(parser, libraryCatalog));
+            } else {
+                System.out.println("Notifications file does not exist. Initializing with an empty observers map.");
+            }
+            return libraryCatalog;
+        } finally {
+            IMPORT.recordSince(start);
+        }
     }
 
     @Override
     public void exportData(LibraryCatalog libraryCatalog) {
-        exportBooks(libraryCatalog);
-        exportUsers(libraryCatalog);
+        long start = System.nanoTime();
+        try {
+            Path books = exportToJson(libraryCatalog.getBooks(), PUBLICATIONS_FILE_NAME, this::writeBook);
+            Path users = exportToJson(libraryCatalog.streamUsers(), USERS_FILE_NAME, this::writeUser);
+            Path notifications = exportToJson(libraryCatalog.observedBooks(), NOTIFICATIONS_FILE_NAME, this::writeObservers);
+            replace(books, PUBLICATIONS_FILE_NAME);
+            replace(users, USERS_FILE_NAME);
+            replace(notifications, NOTIFICATIONS_FILE_NAME);
+        } finally {
+            EXPORT.recordSince(start);
+        }
     }
 
-    private void exportBooks(LibraryCatalog libraryCatalog) {
-        Collection<Book> books = libraryCatalog.getBooks();
-        exportToJson(books, PUBLICATIONS_FILE_NAME);
+    private <T> Path exportToJson(Iterable<T> items, String fileName, RecordWriter<T> recordWriter) {
+        try {
+            return AtomicFiles.writeTemp(file(fileName), writer -> {
+                try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+                    generator.writeStartArray();
+                    for (T item : items) {
+                        recordWriter.write(generator, item);
+                    }
+                    generator.writeEndArray();
+                }
+            });
+        } catch (IOException e) {
+            throw new DataExportException("Błąd zapisu danych do pliku " + fileName + " " + e);
+        }
     }
 
-    private void exportUsers(LibraryCatalog libraryCatalog) {
-        Collection<User> users = libraryCatalog.getUsers();
-        exportToJson(users, USERS_FILE_NAME);
+    private void replace(Path temp, String fileName) {
+        try {
+            AtomicFiles.replace(temp, file(fileName));
+        } catch (IOException e) {
+            throw new DataExportException("Błąd podmiany pliku " + fileName);
+        }
     }
 
-    private <T extends JsonConvertible> void exportToJson(Collection<T> collection, String fileName) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName))) {
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(writer, collection);
-        } catch (IOException e) {
-            throw new DataExportException("Błąd zapisu danych do pliku " + fileName + " " + e);
+    private void writeBook(JsonGenerator generator, Book book) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("title", book.title());
+        generator.writeStringField("author", book.author());
+        generator.writeNumberField("year", book.year());
+        generator.writeStringField("status", book.status().name());
+        generator.writeEndObject();
+    }
+
+    private void writeUser(JsonGenerator generator, User user) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", user.getClass().getSimpleName().toUpperCase());
+        generator.writeStringField("id", user.getId());
+        generator.writeStringField("firstName", user.getFirstName());
+        generator.writeStringField("lastName", user.getLastName());
+        generator.writeStringField("email", user.getEmail());
+        generator.writeArrayFieldStart("borrowedBooks");
+        for (Book book : user.getBorrowedBooks()) {
+            generator.writeString(book.title());
         }
+        generator.writeEndArray();
+        generator.writeEndObject();
     }
 
-    private void importBooks(LibraryCatalog libraryCatalog) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(PUBLICATIONS_FILE_NAME))) {
-            Book[] books = objectMapper.readValue(reader, Book[].class);
-            for (Book book : books) {
-                libraryCatalog.addBook(book);
+    private void writeObservers(JsonGenerator generator, Map.Entry<Book, Set<String>> entry) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("title", entry.getKey().title());
+        generator.writeArrayFieldStart("observers");
+        for (String id : entry.getValue()) {
+            generator.writeString(id);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private void importRecords(String fileName, RecordReader recordReader) {
+        try (BufferedReader reader = Files.newBufferedReader(file(fileName), StandardCharsets.UTF_8);
+             JsonParser parser = jsonFactory.createParser(reader)) {
+            expect(parser.nextToken(), JsonToken.START_ARRAY, fileName);
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                expect(parser.currentToken(), JsonToken.START_OBJECT, fileName);
+                recordReader.read(parser);
             }
-        } catch (IOException e) {
-            throw new DataImportException("Błąd odczytu pliku " + PUBLICATIONS_FILE_NAME + " " + e);
+        } catch (NoSuchFileException e) {
+            throw new DataImportException("Brak pliku " + fileName);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new DataImportException("Błąd odczytu pliku " + fileName + " " + e);
+        }
+    }
+
+    private static void expect(JsonToken token, JsonToken expected, String fileName) {
+        if (token != expected) {
+            throw new DataImportException("Niepoprawna struktura pliku " + fileName + ": oczekiwano " + expected + ", jest " + token);
         }
     }
 
-    private void importUsers(LibraryCatalog libraryCatalog) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(USERS_FILE_NAME))) {
-            User[] users = objectMapper.readValue(reader, User[].class);
-            for (User user : users) {
-                libraryCatalog.addUser(user);
+    private Book readBook(JsonParser parser) throws IOException {
+        JsonLocation location = parser.currentLocation();
+        String title = null;
+        String author = null;
+        int year = 0;
+        BookStatus status = BookStatus.AVAILABLE;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "title" -> title = parser.getValueAsString();
+                case "author" -> author = parser.getValueAsString();
+                case "year" -> year = parser.getValueAsInt();
+                case "status" -> status = BookStatus.valueOf(parser.getValueAsString());
+                default -> parser.skipChildren();
+            }
+        }
+        require(title, "title", location);
+        require(author, "author", location);
+        return new Book(title, author, year, status);
+    }
+
+    private static void require(String value, String field, JsonLocation location) {
+        if (value == null) {
+            throw new DataImportException("Brak pola " + field + " w rekordzie książki w pliku " + PUBLICATIONS_FILE_NAME +
+                    " (linia " + location.getLineNr() + ", kolumna " + location.getColumnNr() + ")");
+        }
+    }
+
+    private User readUser(JsonParser parser, LibraryCatalog libraryCatalog) throws IOException {
+        String type = null;
+        String id = null;
+        String firstName = null;
+        String lastName = null;
+        String email = null;
+        List<String> borrowedTitles = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "type" -> type = parser.getValueAsString();
+                case "id" -> id = parser.getValueAsString();
+                case "firstName" -> firstName = parser.getValueAsString();
+                case "lastName" -> lastName = parser.getValueAsString();
+                case "email" -> email = parser.getValueAsString();
+                case "borrowedBooks" -> readStrings(parser, borrowedTitles, USERS_FILE_NAME);
+                default -> parser.skipChildren();
+            }
+        }
+        if (type == null) {
+            throw new DataImportException("Brak typu użytkownika o id " + id);
+        }
+        User user = UserFactory.createUser(type, id, firstName, lastName, email);
+        for (String title : borrowedTitles) {
+            int handle = libraryCatalog.handleOf(title);
+            if (handle >= 0) {
+                user.addBook(handle);
             }
-        } catch (IOException e) {
-            throw new DataImportException("Błąd odczytu pliku " + USERS_FILE_NAME + " " + e);
         }
+        return user;
+    }
+
+    private void readObservers(JsonParser parser, LibraryCatalog libraryCatalog) throws IOException {
+        String title = null;
+        List<String> observerIds = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "title" -> title = parser.getValueAsString();
+                case "observers" -> readStrings(parser, observerIds, NOTIFICATIONS_FILE_NAME);
+                default -> parser.skipChildren();
+            }
+        }
+        Book book = title == null ? null : libraryCatalog.findBook(title);
+        if (book == null) {
+            throw new DataImportException("Książka o tytule " + title + " nie istnieje w katalogu.");
+        }
+        for (String id : observerIds) {
+            User user = libraryCatalog.findUser(id);
+            if (user != null) {
+                libraryCatalog.addObserverToBook(book, user);
+            }
+        }
+    }
+
+    private static void readStrings(JsonParser parser, List<String> values, String fileName) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        requireToken(parser, JsonToken.START_ARRAY, fileName);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            requireToken(parser, JsonToken.VALUE_STRING, fileName);
+            values.add(parser.getText());
+        }
+    }
+
+    private static void requireToken(JsonParser parser, JsonToken expected, String fileName) {
+        if (parser.currentToken() != expected) {
+            JsonLocation location = parser.currentTokenLocation();
+            throw new DataImportException("Niepoprawna wartość w pliku " + fileName + ": oczekiwano " + expected +
+                    ", jest " + parser.currentToken() + " (linia " + location.getLineNr() + ", kolumna " + location.getColumnNr() + ")");
+        }
+    }
+
+    private Path file(String fileName) {
+        return directory.resolve(fileName);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package io.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+public class MappedCsvReader {
+    private static final long CHUNK_SIZE = 4L << 20;
+    private static final int PROBE_SIZE = 512;
+
+    public static <T> List<T> read(Path file, Function<CsvReader, T> parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<List<T>> parts;
+            try {
+                parts = split(channel).parallelStream()
+                                      .map(chunk -> parseChunk(channel, chunk, parser))
+                                      .toList();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            List<T> records = new ArrayList<>(parts.stream().mapToInt(List::size).sum());
+            parts.forEach(records::addAll);
+            return records;
+        }
+    }
+
+    private static List<Chunk> split(FileChannel channel) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        long size = channel.size();
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        long start = 0;
+        while (start < size) {
+            long end = nextLineStart(channel, Math.min(start + CHUNK_SIZE, size), size, probe);
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer probe) throws IOException {
+        long offset = position - 1;
+        while (offset < size) {
+            probe.clear();
+            int read = channel.read(probe, offset);
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private static <T> List<T> parseChunk(FileChannel channel, Chunk chunk, Function<CsvReader, T> parser) {
+        CharBuffer chars;
+        try {
+            chars = StandardCharsets.UTF_8.decode(channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.end() - chunk.start()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<T> records = new ArrayList<>();
+        CsvReader csvReader = new CsvReader();
+        int length = chars.limit();
+        int lineStart = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || chars.get(i) == '\n') {
+                int lineEnd = i > lineStart && chars.get(i - 1) == '\r' ? i - 1 : i;
+                if (lineEnd > lineStart) {
+                    records.add(parser.apply(csvReader.reset(chars, lineStart, lineEnd)));
+                }
+                lineStart = i + 1;
+            }
+        }
+        return records;
+    }
+
+    private record Chunk(long start, long end) {
+    }
+}
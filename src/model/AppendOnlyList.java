@@ -0,0 +1,45 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class AppendOnlyList<T> extends AbstractList<T> implements RandomAccess {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final List<AtomicReferenceArray<T>> chunks = new CopyOnWriteArrayList<>();
+    private volatile int size;
+
+    @Override
+    public synchronized boolean add(T element) {
+        int index = size;
+        if ((index & CHUNK_MASK) == 0) {
+            chunks.add(new AtomicReferenceArray<>(CHUNK_SIZE));
+        }
+        chunks.get(index >>> CHUNK_BITS).set(index & CHUNK_MASK, element);
+        size = index + 1;
+        return true;
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        return chunks.get(index >>> CHUNK_BITS).get(index & CHUNK_MASK);
+    }
+
+    @Override
+    public T set(int index, T element) {
+        Objects.checkIndex(index, size);
+        return chunks.get(index >>> CHUNK_BITS).getAndSet(index & CHUNK_MASK, element);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,11 @@
+package model;
+
+import model.publications.Book;
+
+public interface BookHandles {
+    int handleOf(String title);
+
+    Book book(int handle);
+
+    String title(int handle);
+}
@@ -0,0 +1,4 @@
+package model;
+
+public record BookRequest(String userId, String title) {
+}
@@ -0,0 +1,482 @@
+package model;
+
+import model.publications.Book;
+import model.publications.BookStatus;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+public class BookStore extends AbstractList<Book> implements RandomAccess {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int SEGMENT_BITS = 6;
+    public static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int CHUNK_WORDS = CHUNK_SIZE >>> 6;
+    private static final BookStatus[] STATUSES = BookStatus.values();
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private static final class Chunk {
+        volatile byte[] titleBytes;
+        final int[] titleEnds;
+        final int[] titleHashes;
+        final int[] authors;
+        final int[] years;
+        final byte[] statuses;
+        final int[] stamps;
+        final long[] statusBits;
+        final int[] statusCounts;
+        final AtomicLongArray segmentVersions = new AtomicLongArray(CHUNK_SIZE >>> SEGMENT_BITS);
+
+        Chunk() {
+            this(new byte[CHUNK_SIZE * 16], new int[CHUNK_SIZE], new int[CHUNK_SIZE], new int[CHUNK_SIZE], new int[CHUNK_SIZE], new byte[CHUNK_SIZE], true);
+        }
+
+        Chunk(byte[] titleBytes, int[] titleEnds, int[] titleHashes, int[] authors, int[] years, byte[] statuses, boolean live) {
+            this.titleBytes = titleBytes;
+            this.titleEnds = titleEnds;
+            this.titleHashes = titleHashes;
+            this.authors = authors;
+            this.years = years;
+            this.statuses = statuses;
+            this.stamps = live ? new int[CHUNK_SIZE >>> SEGMENT_BITS] : null;
+            this.statusBits = live ? new long[STATUSES.length * CHUNK_WORDS] : null;
+            this.statusCounts = live ? new int[STATUSES.length] : null;
+        }
+    }
+
+    private final List<Chunk> chunks = new CopyOnWriteArrayList<>();
+    private final List<String> authors = new AppendOnlyList<>();
+    private final Map<String, Integer> authorIds = new ConcurrentHashMap<>();
+    private volatile AtomicIntegerArray titleTable = new AtomicIntegerArray(CHUNK_SIZE);
+    private final AtomicLong version = new AtomicLong();
+    private volatile int size;
+
+    @Override
+    public synchronized boolean add(Book book) {
+        int position = size;
+        if ((position & CHUNK_MASK) == 0) {
+            chunks.add(new Chunk());
+        }
+        Chunk chunk = chunks.get(position >>> CHUNK_BITS);
+        int offset = position & CHUNK_MASK;
+        appendTitle(chunk, offset, book.title());
+        chunk.titleHashes[offset] = normalize(book.title()).hashCode();
+        chunk.authors[offset] = authorId(book.author());
+        chunk.years[offset] = book.year();
+        chunk.statuses[offset] = (byte) book.status().ordinal();
+        markStatus(chunk, offset, book.status().ordinal());
+        size = position + 1;
+        indexTitle(position);
+        chunk.segmentVersions.set(offset >>> SEGMENT_BITS, version.incrementAndGet());
+        return true;
+    }
+
+    @Override
+    public Book get(int position) {
+        Objects.checkIndex(position, size);
+        Chunk chunk = chunks.get(position >>> CHUNK_BITS);
+        int offset = position & CHUNK_MASK;
+        int author;
+        int year;
+        int status;
+        int stamp;
+        do {
+            stamp = (int) INTS.getAcquire(chunk.stamps, offset >>> SEGMENT_BITS);
+            author = (int) INTS.getOpaque(chunk.authors, offset);
+            year = (int) INTS.getOpaque(chunk.years, offset);
+            status = (byte) BYTES.getOpaque(chunk.statuses, offset);
+            VarHandle.acquireFence();
+        } while ((stamp & 1) != 0 || stamp != (int) INTS.getOpaque(chunk.stamps, offset >>> SEGMENT_BITS));
+        return new Book(titleAt(chunk, offset), authors.get(author), year, STATUSES[status]);
+    }
+
+    @Override
+    public Book set(int position, Book book) {
+        Book previous = get(position);
+        Chunk chunk = chunks.get(position >>> CHUNK_BITS);
+        int offset = position & CHUNK_MASK;
+        int author = authorId(book.author());
+        int stamp = beginWrite(chunk, offset);
+        INTS.setOpaque(chunk.authors, offset, author);
+        INTS.setOpaque(chunk.years, offset, book.year());
+        writeStatus(chunk, offset, (byte) BYTES.getOpaque(chunk.statuses, offset), book.status().ordinal());
+        INTS.setRelease(chunk.stamps, offset >>> SEGMENT_BITS, stamp + 2);
+        chunk.segmentVersions.set(offset >>> SEGMENT_BITS, version.incrementAndGet());
+        return previous;
+    }
+
+    private static int beginWrite(Chunk chunk, int offset) {
+        int segment = offset >>> SEGMENT_BITS;
+        while (true) {
+            int stamp = (int) INTS.getVolatile(chunk.stamps, segment);
+            if ((stamp & 1) == 0 && INTS.compareAndSet(chunk.stamps, segment, stamp, stamp + 1)) {
+                VarHandle.releaseFence();
+                return stamp;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void writeStatus(Chunk chunk, int offset, int previous, int status) {
+        if (previous == status) {
+            return;
+        }
+        markStatus(chunk, offset, status);
+        BYTES.setOpaque(chunk.statuses, offset, (byte) status);
+        LONGS.getAndBitwiseAnd(chunk.statusBits, previous * CHUNK_WORDS + (offset >>> 6), ~(1L << offset));
+        INTS.getAndAdd(chunk.statusCounts, previous, -1);
+    }
+
+    private static void markStatus(Chunk chunk, int offset, int status) {
+        LONGS.getAndBitwiseOr(chunk.statusBits, status * CHUNK_WORDS + (offset >>> 6), 1L << offset);
+        INTS.getAndAdd(chunk.statusCounts, status, 1);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public List<Book> freeze(int[] statusCounts) {
+        int count = size;
+        List<Chunk> frozen = new ArrayList<>();
+        for (int start = 0; start < count; start += CHUNK_SIZE) {
+            Chunk chunk = chunks.get(start >>> CHUNK_BITS);
+            int length = Math.min(CHUNK_SIZE, count - start);
+            int[] authors = new int[length];
+            int[] years = new int[length];
+            byte[] statuses = new byte[length];
+            for (int from = 0; from < length; from += SEGMENT_SIZE) {
+                copySegment(chunk, from, Math.min(from + SEGMENT_SIZE, length), authors, years, statuses);
+            }
+            if (statusCounts != null) {
+                for (byte status : statuses) {
+                    statusCounts[status]++;
+                }
+            }
+            frozen.add(new Chunk(chunk.titleBytes, chunk.titleEnds, chunk.titleHashes, authors, years, statuses, false));
+        }
+        return new FrozenBooks(frozen, count);
+    }
+
+    private static void copySegment(Chunk chunk, int from, int to, int[] authors, int[] years, byte[] statuses) {
+        int segment = from >>> SEGMENT_BITS;
+        int stamp;
+        do {
+            stamp = (int) INTS.getAcquire(chunk.stamps, segment);
+            for (int offset = from; offset < to; offset++) {
+                authors[offset] = (int) INTS.getOpaque(chunk.authors, offset);
+                years[offset] = (int) INTS.getOpaque(chunk.years, offset);
+                statuses[offset] = (byte) BYTES.getOpaque(chunk.statuses, offset);
+            }
+            VarHandle.acquireFence();
+        } while ((stamp & 1) != 0 || stamp != (int) INTS.getOpaque(chunk.stamps, segment));
+    }
+
+    private final class FrozenBooks extends AbstractList<Book> implements RandomAccess {
+        private final List<Chunk> frozen;
+        private final int count;
+
+        private FrozenBooks(List<Chunk> frozen, int count) {
+            this.frozen = frozen;
+            this.count = count;
+        }
+
+        @Override
+        public Book get(int position) {
+            Objects.checkIndex(position, count);
+            Chunk chunk = frozen.get(position >>> CHUNK_BITS);
+            int offset = position & CHUNK_MASK;
+            return new Book(titleAt(chunk, offset), authors.get(chunk.authors[offset]), chunk.years[offset], STATUSES[chunk.statuses[offset]]);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    public long segmentVersion(int segment) {
+        int position = segment << SEGMENT_BITS;
+        return chunks.get(position >>> CHUNK_BITS).segmentVersions.get((position & CHUNK_MASK) >>> SEGMENT_BITS);
+    }
+
+    public String title(int position) {
+        Objects.checkIndex(position, size);
+        return titleAt(position);
+    }
+
+    public BookStatus status(int position) {
+        Objects.checkIndex(position, size);
+        Chunk chunk = chunks.get(position >>> CHUNK_BITS);
+        return STATUSES[(byte) BYTES.getAcquire(chunk.statuses, position & CHUNK_MASK)];
+    }
+
+    public void setStatus(int position, BookStatus status) {
+        Objects.checkIndex(position, size);
+        Chunk chunk = chunks.get(position >>> CHUNK_BITS);
+        int offset = position & CHUNK_MASK;
+        int stamp = beginWrite(chunk, offset);
+        writeStatus(chunk, offset, (byte) BYTES.getOpaque(chunk.statuses, offset), status.ordinal());
+        INTS.setRelease(chunk.stamps, offset >>> SEGMENT_BITS, stamp + 2);
+        chunk.segmentVersions.set(offset >>> SEGMENT_BITS, version.incrementAndGet());
+    }
+
+    public void forEachWithStatus(BookStatus status, IntConsumer action) {
+        int wanted = status.ordinal();
+        int count = size;
+        for (int start = 0; start < count; start += CHUNK_SIZE) {
+            Chunk chunk = chunks.get(start >>> CHUNK_BITS);
+            if ((int) INTS.getOpaque(chunk.statusCounts, wanted) == 0) {
+                continue;
+            }
+            for (int word = 0; word < CHUNK_WORDS; word++) {
+                long bits = (long) LONGS.getAcquire(chunk.statusBits, wanted * CHUNK_WORDS + word);
+                while (bits != 0) {
+                    int offset = word << 6 | Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (start + offset < count && (byte) BYTES.getAcquire(chunk.statuses, offset) == wanted) {
+                        action.accept(start + offset);
+                    }
+                }
+            }
+        }
+    }
+
+    public int indexOf(String title) {
+        String key = normalize(title);
+        return find(key, key.hashCode());
+    }
+
+    private int find(String key, int hash) {
+        AtomicIntegerArray table = titleTable;
+        int mask = table.length() - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table.get(slot);
+            if (entry == 0) {
+                return -1;
+            }
+            int position = entry - 1;
+            if (titleHashAt(position) == hash && titleEquals(position, key)) {
+                return position;
+            }
+        }
+    }
+
+    private boolean titleEquals(int position, String key) {
+        Chunk chunk = chunks.get(position >>> CHUNK_BITS);
+        int offset = position & CHUNK_MASK;
+        byte[] bytes = chunk.titleBytes;
+        int index = offset == 0 ? 0 : chunk.titleEnds[offset - 1];
+        int end = chunk.titleEnds[offset];
+        int matched = 0;
+        while (index < end) {
+            int b = bytes[index];
+            if (b >= 0) {
+                if (matched == key.length() || key.charAt(matched) != lowerAscii(b)) {
+                    return false;
+                }
+                matched++;
+                index++;
+                continue;
+            }
+            int codePoint = decode(bytes, index);
+            if (codePoint == 'İ' || codePoint == 'Σ') {
+                return normalize(titleAt(chunk, offset)).equals(key);
+            }
+            int lower = Character.toLowerCase(codePoint);
+            if (Character.isBmpCodePoint(lower)) {
+                if (matched == key.length() || key.charAt(matched) != lower) {
+                    return false;
+                }
+            } else if (matched + 1 >= key.length() || key.charAt(matched) != Character.highSurrogate(lower)
+                    || key.charAt(matched + 1) != Character.lowSurrogate(lower)) {
+                return false;
+            }
+            matched += Character.charCount(lower);
+            index += encodedLength(b);
+        }
+        return matched == key.length();
+    }
+
+    public boolean titleContains(int position, String query) {
+        Objects.checkIndex(position, size);
+        Chunk chunk = chunks.get(position >>> CHUNK_BITS);
+        int offset = position & CHUNK_MASK;
+        byte[] bytes = chunk.titleBytes;
+        int end = chunk.titleEnds[offset];
+        for (int start = offset == 0 ? 0 : chunk.titleEnds[offset - 1]; start < end; start += encodedLength(bytes[start])) {
+            if (matchesAt(bytes, start, end, query)) {
+                return true;
+            }
+        }
+        return query.isEmpty();
+    }
+
+    private static boolean matchesAt(byte[] bytes, int index, int end, String query) {
+        int matched = 0;
+        while (matched < query.length()) {
+            if (index >= end) {
+                return false;
+            }
+            int b = bytes[index];
+            if (b >= 0) {
+                if (!sameIgnoreCase((char) b, query.charAt(matched))) {
+                    return false;
+                }
+                matched++;
+                index++;
+                continue;
+            }
+            int codePoint = decode(bytes, index);
+            index += encodedLength(b);
+            if (Character.isBmpCodePoint(codePoint)) {
+                if (!sameIgnoreCase((char) codePoint, query.charAt(matched))) {
+                    return false;
+                }
+                matched++;
+            } else if (query.charAt(matched) != Character.highSurrogate(codePoint)
+                    || matched + 1 < query.length() && query.charAt(matched + 1) != Character.lowSurrogate(codePoint)) {
+                return false;
+            } else {
+                matched += 2;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameIgnoreCase(char a, char b) {
+        if (a == b) {
+            return true;
+        }
+        char upperA = Character.toUpperCase(a);
+        char upperB = Character.toUpperCase(b);
+        return upperA == upperB || Character.toLowerCase(upperA) == Character.toLowerCase(upperB);
+    }
+
+    private static char lowerAscii(int b) {
+        return (char) (b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b);
+    }
+
+    private static int encodedLength(int lead) {
+        return lead >= 0 ? 1 : (lead & 0xE0) == 0xC0 ? 2 : (lead & 0xF0) == 0xE0 ? 3 : 4;
+    }
+
+    private static int decode(byte[] bytes, int index) {
+        int lead = bytes[index];
+        return switch (encodedLength(lead)) {
+            case 1 -> lead;
+            case 2 -> (lead & 0x1F) << 6 | bytes[index + 1] & 0x3F;
+            case 3 -> (lead & 0x0F) << 12 | (bytes[index + 1] & 0x3F) << 6 | bytes[index + 2] & 0x3F;
+            default -> (lead & 0x07) << 18 | (bytes[index + 1] & 0x3F) << 12 | (bytes[index + 2] & 0x3F) << 6 | bytes[index + 3] & 0x3F;
+        };
+    }
+
+    public int authorCount() {
+        return authors.size();
+    }
+
+    private int authorId(String author) {
+        Integer id = authorIds.get(author);
+        if (id == null) {
+            synchronized (authorIds) {
+                id = authorIds.get(author);
+                if (id == null) {
+                    id = authors.size();
+                    authors.add(author);
+                    authorIds.put(author, id);
+                }
+            }
+        }
+        return id;
+    }
+
+    private void indexTitle(int position) {
+        if (find(normalize(titleAt(position)), titleHashAt(position)) >= 0) {
+            return;
+        }
+        AtomicIntegerArray table = titleTable;
+        if ((position + 1) * 2 > table.length()) {
+            table = rehash(table);
+        }
+        insert(table, position);
+    }
+
+    private AtomicIntegerArray rehash(AtomicIntegerArray table) {
+        AtomicIntegerArray larger = new AtomicIntegerArray(table.length() * 2);
+        for (int slot = 0; slot < table.length(); slot++) {
+            int entry = table.get(slot);
+            if (entry != 0) {
+                insert(larger, entry - 1);
+            }
+        }
+        titleTable = larger;
+        return larger;
+    }
+
+    private void insert(AtomicIntegerArray table, int position) {
+        int mask = table.length() - 1;
+        int slot = spread(titleHashAt(position)) & mask;
+        while (table.get(slot) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table.set(slot, position + 1);
+    }
+
+    private static void appendTitle(Chunk chunk, int offset, String title) {
+        byte[] encoded = title.getBytes(StandardCharsets.UTF_8);
+        int start = offset == 0 ? 0 : chunk.titleEnds[offset - 1];
+        byte[] bytes = chunk.titleBytes;
+        if (start + encoded.length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, start + encoded.length));
+        }
+        System.arraycopy(encoded, 0, bytes, start, encoded.length);
+        chunk.titleEnds[offset] = start + encoded.length;
+        chunk.titleBytes = bytes;
+    }
+
+    private String titleAt(int position) {
+        return titleAt(chunks.get(position >>> CHUNK_BITS), position & CHUNK_MASK);
+    }
+
+    private static String titleAt(Chunk chunk, int offset) {
+        byte[] bytes = chunk.titleBytes;
+        int start = offset == 0 ? 0 : chunk.titleEnds[offset - 1];
+        return new String(bytes, start, chunk.titleEnds[offset] - start, StandardCharsets.UTF_8);
+    }
+
+    private int titleHashAt(int position) {
+        return chunks.get(position >>> CHUNK_BITS).titleHashes[position & CHUNK_MASK];
+    }
+
+    static int spread(int hash) {
+        int mixed = hash * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+
+    static String normalize(String title) {
+        return title.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,30 @@
+package model;
+
+import model.publications.Book;
+import model.users.User;
+
+public interface CatalogListener {
+    default void bookAdded(Book book) {
+    }
+
+    default void bookUpdated(Book book) {
+    }
+
+    default void userAdded(User user) {
+    }
+
+    default void bookBorrowed(User user, Book book) {
+    }
+
+    default void bookReturned(User user, Book book) {
+    }
+
+    default void observerAdded(User user, Book book) {
+    }
+
+    default void observerRemoved(User user, Book book) {
+    }
+
+    default void awaitDurable() {
+    }
+}
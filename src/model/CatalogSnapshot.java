@@ -0,0 +1,62 @@
+package model;
+
+import model.publications.Book;
+import model.publications.BookStatus;
+import model.users.User;
+import service.iterator.SnapshotSpliterator;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class CatalogSnapshot {
+    private final List<Book> books;
+    private final List<User> users;
+    private final Map<BookStatus, Integer> bookStatusCounts;
+
+    CatalogSnapshot(List<Book> books, List<User> users, Map<BookStatus, Integer> bookStatusCounts) {
+        this.books = Collections.unmodifiableList(books);
+        this.users = Collections.unmodifiableList(users);
+        this.bookStatusCounts = Collections.unmodifiableMap(new EnumMap<>(bookStatusCounts));
+    }
+
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public Stream<Book> books() {
+        return StreamSupport.stream(new SnapshotSpliterator<>(books), false);
+    }
+
+    public Stream<User> users() {
+        return StreamSupport.stream(new SnapshotSpliterator<>(users), false);
+    }
+
+    public int countBooksByStatus(BookStatus bookStatus) {
+        return bookStatusCounts.getOrDefault(bookStatus, 0);
+    }
+
+    public Page<Book> booksPage(int cursor, int pageSize) {
+        return page(books, cursor, pageSize);
+    }
+
+    public Page<User> usersPage(int cursor, int pageSize) {
+        return page(users, cursor, pageSize);
+    }
+
+    static <T> Page<T> page(List<T> items, int cursor, int pageSize) {
+        if (cursor < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("Invalid page: cursor " + cursor + ", size " + pageSize);
+        }
+        int end = cursor + Math.min(pageSize, Math.max(0, items.size() - cursor));
+        List<T> page = cursor >= end ? List.of() : List.copyOf(items.subList(cursor, end));
+        return new Page<>(page, end < items.size() ? end : Page.END);
+    }
+}
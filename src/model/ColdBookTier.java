@@ -0,0 +1,448 @@
+package model;
+
+import model.publications.Book;
+import model.publications.BookStatus;
+import service.search.PostingList;
+import service.search.TrigramIndex;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+public class ColdBookTier {
+    private static final int MAGIC = 0x4C494243;
+    private static final int VERSION = 1;
+    private static final int RECORD_SIZE = 24;
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+    private static final BookStatus[] STATUSES = BookStatus.values();
+    private static final int HEADER_INTS = 6 + STATUSES.length;
+    private static final int OFFSETS = align(HEADER_INTS * Integer.BYTES);
+    private static final int HEADER_SIZE = OFFSETS + 8 * Long.BYTES;
+
+    private final MappedByteBuffer[] segments;
+    private final String[] authors;
+    private final int size;
+    private final int tableMask;
+    private final int gramCount;
+    private final long recordsOffset;
+    private final long titlesOffset;
+    private final long tableOffset;
+    private final long gramsOffset;
+    private final long postingStartsOffset;
+    private final long postingsOffset;
+    private final AtomicInteger[] statusCounts = new AtomicInteger[STATUSES.length];
+    private final long[] statusOffsets = new long[STATUSES.length];
+    private final AtomicLongArray shadowed;
+    private final AtomicInteger shadowedCount = new AtomicInteger();
+
+    private ColdBookTier(MappedByteBuffer[] segments, long length) throws IOException {
+        this.segments = segments;
+        if (length < HEADER_SIZE || getInt(0) != MAGIC) {
+            throw new IOException("Not a cold book tier file");
+        }
+        int version = getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported cold book tier version " + version);
+        }
+        size = getInt(8);
+        authors = new String[check(getInt(12), Integer.MAX_VALUE)];
+        int tableSize = getInt(16);
+        if (tableSize <= 0 || Integer.bitCount(tableSize) != 1 || size < 0 || size >= tableSize) {
+            throw new IOException("Corrupt cold book tier header");
+        }
+        tableMask = tableSize - 1;
+        gramCount = check(getInt(20), Integer.MAX_VALUE);
+        long statusTotal = 0;
+        for (int i = 0; i < STATUSES.length; i++) {
+            int count = check(getInt(24 + i * Integer.BYTES), size);
+            statusCounts[i] = new AtomicInteger(count);
+            statusTotal += count;
+        }
+        if (statusTotal != size) {
+            throw new IOException("Corrupt cold book tier header");
+        }
+        long authorsOffset = getLong(OFFSETS);
+        recordsOffset = getLong(OFFSETS + 8);
+        titlesOffset = getLong(OFFSETS + 16);
+        tableOffset = getLong(OFFSETS + 24);
+        gramsOffset = getLong(OFFSETS + 32);
+        postingStartsOffset = getLong(OFFSETS + 40);
+        postingsOffset = getLong(OFFSETS + 48);
+        long statusesOffset = getLong(OFFSETS + 56);
+        long[] sections = {HEADER_SIZE, authorsOffset,
+                recordsOffset, recordsOffset + (long) size * RECORD_SIZE, titlesOffset,
+                tableOffset, tableOffset + (long) tableSize * Integer.BYTES, gramsOffset,
+                gramsOffset + (long) gramCount * Long.BYTES, postingStartsOffset,
+                postingStartsOffset + (long) (gramCount + 1) * Long.BYTES, postingsOffset, length};
+        for (int i = 1; i < sections.length; i++) {
+            if (sections[i] < sections[i - 1]) {
+                throw new IOException("Truncated cold book tier file");
+            }
+        }
+        long postingsEnd = postingsOffset + getLong(postingStartsOffset + (long) gramCount * Long.BYTES) * Integer.BYTES;
+        if (postingsEnd < postingsOffset || postingsEnd > length
+                || statusesOffset < postingsEnd || statusesOffset + (long) size * Integer.BYTES > length) {
+            throw new IOException("Truncated cold book tier file");
+        }
+        for (int i = 0; i < authors.length; i++) {
+            int authorLength = authorsOffset + Integer.BYTES > recordsOffset ? -1 : getInt(authorsOffset);
+            if (authorLength < 0 || authorsOffset + Integer.BYTES + authorLength > recordsOffset) {
+                throw new IOException("Truncated cold book tier file");
+            }
+            authors[i] = getString(authorsOffset + Integer.BYTES, authorLength);
+            authorsOffset += Integer.BYTES + authorLength;
+        }
+        shadowed = new AtomicLongArray((size + 63) >>> 6);
+        for (int i = 0; i < STATUSES.length; i++) {
+            statusOffsets[i] = statusesOffset;
+            statusesOffset += (long) statusCounts[i].get() * Integer.BYTES;
+        }
+    }
+
+    private static int check(int value, int max) throws IOException {
+        if (value < 0 || value > max) {
+            throw new IOException("Corrupt cold book tier header");
+        }
+        return value;
+    }
+
+    public static ColdBookTier open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE) {
+                throw new IOException("Truncated cold book tier file " + file);
+            }
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_BITS)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << SEGMENT_BITS;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_MASK + 1, length - start));
+            }
+            return new ColdBookTier(segments, length);
+        }
+    }
+
+    public static void write(WritableByteChannel channel, List<Book> books) throws IOException {
+        Map<String, Integer> authorIds = new LinkedHashMap<>();
+        Map<Long, PostingList> postings = new HashMap<>();
+        int[] counts = new int[STATUSES.length];
+        int[] table = new int[Math.max(16, Integer.highestOneBit(Math.max(1, books.size())) << 2)];
+        List<byte[]> authorBytes = new ArrayList<>();
+        long authorsSize = 0;
+        long titlesSize = 0;
+        for (int position = 0; position < books.size(); position++) {
+            Book book = books.get(position);
+            if (authorIds.putIfAbsent(book.author(), authorIds.size()) == null) {
+                byte[] encoded = book.author().getBytes(StandardCharsets.UTF_8);
+                authorBytes.add(encoded);
+                authorsSize += Integer.BYTES + encoded.length;
+            }
+            counts[book.status().ordinal()]++;
+            titlesSize += book.title().getBytes(StandardCharsets.UTF_8).length;
+            String key = BookStore.normalize(book.title());
+            insert(table, books, key, position);
+            for (int i = 0; i + TrigramIndex.GRAM_LENGTH <= key.length(); i++) {
+                postings.computeIfAbsent(TrigramIndex.gram(key, i), gram -> new PostingList()).add(position);
+            }
+        }
+        long[] grams = postings.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+
+        long authorsOffset = HEADER_SIZE;
+        long recordsOffset = align(authorsOffset + authorsSize);
+        long titlesOffset = recordsOffset + (long) books.size() * RECORD_SIZE;
+        long tableOffset = align(titlesOffset + titlesSize);
+        long gramsOffset = tableOffset + (long) table.length * Integer.BYTES;
+        long postingStartsOffset = gramsOffset + (long) grams.length * Long.BYTES;
+        long postingsOffset = postingStartsOffset + (long) (grams.length + 1) * Long.BYTES;
+        long postingsSize = 0;
+        for (PostingList list : postings.values()) {
+            postingsSize += list.size();
+        }
+        long statusesOffset = postingsOffset + postingsSize * Integer.BYTES;
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(books.size());
+        out.writeInt(authorBytes.size());
+        out.writeInt(table.length);
+        out.writeInt(grams.length);
+        for (int count : counts) {
+            out.writeInt(count);
+        }
+        pad(out, HEADER_INTS * Integer.BYTES);
+        for (long offset : new long[]{authorsOffset, recordsOffset, titlesOffset, tableOffset, gramsOffset, postingStartsOffset,
+                postingsOffset, statusesOffset}) {
+            out.writeLong(offset);
+        }
+
+        for (byte[] author : authorBytes) {
+            out.writeInt(author.length);
+            out.write(author);
+        }
+        pad(out, authorsSize);
+
+        long titleOffset = 0;
+        for (Book book : books) {
+            int length = book.title().getBytes(StandardCharsets.UTF_8).length;
+            out.writeLong(titleOffset);
+            out.writeInt(length);
+            out.writeInt(authorIds.get(book.author()));
+            out.writeInt(book.year());
+            out.writeByte(book.status().ordinal());
+            out.write(new byte[RECORD_SIZE - 21]);
+            titleOffset += length;
+        }
+
+        for (Book book : books) {
+            out.write(book.title().getBytes(StandardCharsets.UTF_8));
+        }
+        pad(out, titlesSize);
+
+        for (int entry : table) {
+            out.writeInt(entry);
+        }
+        for (long gram : grams) {
+            out.writeLong(gram);
+        }
+        long postingStart = 0;
+        out.writeLong(postingStart);
+        for (long gram : grams) {
+            postingStart += postings.get(gram).size();
+            out.writeLong(postingStart);
+        }
+        for (long gram : grams) {
+            PostingList list = postings.get(gram);
+            for (int i = 0; i < list.size(); i++) {
+                out.writeInt(list.get(i));
+            }
+        }
+        for (BookStatus status : STATUSES) {
+            for (int position = 0; position < books.size(); position++) {
+                if (books.get(position).status() == status) {
+                    out.writeInt(position);
+                }
+            }
+        }
+        out.flush();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Book get(int position) {
+        long record = recordsOffset + (long) position * RECORD_SIZE;
+        String title = getString(titlesOffset + getLong(record), getInt(record + 8));
+        return new Book(title, authors[getInt(record + 12)], getInt(record + 16), STATUSES[getByte(record + 20)]);
+    }
+
+    public int indexOf(String title) {
+        int position = rawIndexOf(BookStore.normalize(title));
+        return position < 0 || isShadowed(position) ? -1 : position;
+    }
+
+    public boolean isShadowed(int position) {
+        return (shadowed.get(position >>> 6) & 1L << position) != 0;
+    }
+
+    public BitSet shadowed() {
+        long[] words = new long[shadowed.length()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = shadowed.get(i);
+        }
+        return BitSet.valueOf(words);
+    }
+
+    public int shadowedCount() {
+        return shadowedCount.get();
+    }
+
+    public void shadow(String title) {
+        int position = rawIndexOf(BookStore.normalize(title));
+        if (position < 0) {
+            return;
+        }
+        long bit = 1L << position;
+        long word;
+        do {
+            word = shadowed.get(position >>> 6);
+            if ((word & bit) != 0) {
+                return;
+            }
+        } while (!shadowed.compareAndSet(position >>> 6, word, word | bit));
+        shadowedCount.incrementAndGet();
+        statusCounts[status(position).ordinal()].decrementAndGet();
+    }
+
+    public void search(String query, IntConsumer matches) {
+        if (query.length() < TrigramIndex.GRAM_LENGTH) {
+            for (int position = 0; position < size; position++) {
+                matchTitle(position, query, matches);
+            }
+            return;
+        }
+
+        int candidates = -1;
+        long candidateCount = Long.MAX_VALUE;
+        for (int i = 0; i + TrigramIndex.GRAM_LENGTH <= query.length(); i++) {
+            int gram = findGram(TrigramIndex.gram(query, i));
+            if (gram < 0) {
+                return;
+            }
+            long count = postingCount(gram);
+            if (count < candidateCount) {
+                candidates = gram;
+                candidateCount = count;
+            }
+        }
+
+        long start = getLong(postingStartsOffset + (long) candidates * Long.BYTES);
+        for (long i = 0; i < candidateCount; i++) {
+            matchTitle(getInt(postingsOffset + (start + i) * Integer.BYTES), query, matches);
+        }
+    }
+
+    public void forEachWithStatus(BookStatus status, IntConsumer action) {
+        int ordinal = status.ordinal();
+        int count = getInt(24 + ordinal * Integer.BYTES);
+        for (int i = 0; i < count; i++) {
+            int position = getInt(statusOffsets[ordinal] + (long) i * Integer.BYTES);
+            if (!isShadowed(position)) {
+                action.accept(position);
+            }
+        }
+    }
+
+    public int count(BookStatus status) {
+        return statusCounts[status.ordinal()].get();
+    }
+
+    private void matchTitle(int position, String query, IntConsumer matches) {
+        if (!isShadowed(position) && TrigramIndex.containsIgnoreCase(title(position), query)) {
+            matches.accept(position);
+        }
+    }
+
+    String title(int position) {
+        long record = recordsOffset + (long) position * RECORD_SIZE;
+        return getString(titlesOffset + getLong(record), getInt(record + 8));
+    }
+
+    BookStatus status(int position) {
+        return STATUSES[getByte(recordsOffset + (long) position * RECORD_SIZE + 20)];
+    }
+
+    int rawIndexOf(String key) {
+        int hash = key.hashCode();
+        for (int slot = BookStore.spread(hash) & tableMask; ; slot = (slot + 1) & tableMask) {
+            int entry = getInt(tableOffset + (long) slot * Integer.BYTES);
+            if (entry == 0) {
+                return -1;
+            }
+            if (BookStore.normalize(title(entry - 1)).equals(key)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private int findGram(long gram) {
+        int low = 0;
+        int high = gramCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = getLong(gramsOffset + (long) middle * Long.BYTES);
+            if (value < gram) {
+                low = middle + 1;
+            } else if (value > gram) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private long postingCount(int gram) {
+        long start = postingStartsOffset + (long) gram * Long.BYTES;
+        return getLong(start + Long.BYTES) - getLong(start);
+    }
+
+    private static void insert(int[] table, List<Book> books, String key, int position) {
+        int mask = table.length - 1;
+        for (int slot = BookStore.spread(key.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            if (table[slot] == 0) {
+                table[slot] = position + 1;
+                return;
+            }
+            if (BookStore.normalize(books.get(table[slot] - 1).title()).equals(key)) {
+                return;
+            }
+        }
+    }
+
+    private int getByte(long offset) {
+        return segments[(int) (offset >>> SEGMENT_BITS)].get((int) (offset & SEGMENT_MASK));
+    }
+
+    private int getInt(long offset) {
+        MappedByteBuffer segment = segments[(int) (offset >>> SEGMENT_BITS)];
+        int index = (int) (offset & SEGMENT_MASK);
+        if (index + Integer.BYTES <= segment.limit()) {
+            return segment.getInt(index);
+        }
+        return (getByte(offset) & 0xFF) << 24 | (getByte(offset + 1) & 0xFF) << 16
+                | (getByte(offset + 2) & 0xFF) << 8 | getByte(offset + 3) & 0xFF;
+    }
+
+    private long getLong(long offset) {
+        MappedByteBuffer segment = segments[(int) (offset >>> SEGMENT_BITS)];
+        int index = (int) (offset & SEGMENT_MASK);
+        if (index + Long.BYTES <= segment.limit()) {
+            return segment.getLong(index);
+        }
+        return (long) getInt(offset) << 32 | getInt(offset + Integer.BYTES) & 0xFFFFFFFFL;
+    }
+
+    private String getString(long offset, int length) {
+        byte[] bytes = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            long position = offset + copied;
+            MappedByteBuffer segment = segments[(int) (position >>> SEGMENT_BITS)];
+            int index = (int) (position & SEGMENT_MASK);
+            int chunk = Math.min(length - copied, segment.limit() - index);
+            segment.get(index, bytes, copied, chunk);
+            copied += chunk;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void pad(DataOutputStream out, long written) throws IOException {
+        out.write(new byte[(int) (align(written) - written)]);
+    }
+
+    private static int align(int value) {
+        return (value + 7) & ~7;
+    }
+
+    private static long align(long value) {
+        return (value + 7) & ~7L;
+    }
+}
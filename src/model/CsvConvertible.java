@@ -1,6 +1,89 @@
 package model;
 
+import java.io.IOException;
+import java.util.function.Function;
+
 public interface CsvConvertible {
+    char SEPARATOR = ';';
+    char QUOTE = '"';
+
     String toCsv();
-}
 
+    default void writeCsv(Appendable out) throws IOException {
+        out.append(toCsv());
+    }
+
+    static void appendField(Appendable out, CharSequence value) throws IOException {
+        if (!needsQuotes(value)) {
+            out.append(value);
+            return;
+        }
+        out.append(QUOTE);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == QUOTE) {
+                out.append(QUOTE).append(QUOTE);
+            } else if (c == '\n' || c == '\r') {
+                out.append(' ');
+            } else {
+                out.append(c);
+            }
+        }
+        out.append(QUOTE);
+    }
+
+    static void appendInt(Appendable out, int value) throws IOException {
+        long remaining = value;
+        if (remaining < 0) {
+            out.append('-');
+            remaining = -remaining;
+        }
+        long divisor = 1;
+        while (divisor * 10 <= remaining) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + remaining / divisor % 10));
+        }
+    }
+
+    static <T> void appendList(Appendable out, Iterable<T> items, Function<T, CharSequence> field) throws IOException {
+        out.append('[');
+        boolean first = true;
+        for (T item : items) {
+            if (!first) {
+                out.append(", ");
+            }
+            appendField(out, field.apply(item));
+            first = false;
+        }
+        out.append(']');
+    }
+
+    static String format(CsvConvertible convertible) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            convertible.writeCsv(builder);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
+    }
+
+    private static boolean needsQuotes(CharSequence value) {
+        int length = value.length();
+        if (length > 0 && (value.charAt(0) == ' ' || value.charAt(length - 1) == ' ')) {
+            return true;
+        }
+        for (int i = 0; i < length; i++) {
+            switch (value.charAt(i)) {
+                case SEPARATOR, QUOTE, ',', '[', ']', '\n', '\r' -> {
+                    return true;
+                }
+                default -> {
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -1,6 +1,11 @@
 package model;
 
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
 public interface JsonConvertible {
     String toJson();
 
-}
\ No newline at end of file
+    static String quote(String value) {
+        return "\"" + new String(JsonStringEncoder.getInstance().quoteAsString(value)) + "\"";
+    }
+}
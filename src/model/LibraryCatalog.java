@@ -5,136 +5,876 @@ import model.publications.BookStatus;
 import model.users.User;
 import service.iterator.BookIterator;
 import service.iterator.UserIterator;
-import service.observer.Observer;
+import service.metrics.LibraryMetrics;
+import service.metrics.OperationStats;
+import service.observer.Notification;
+import service.observer.NotificationDispatcher;
+import service.observer.SubscriptionRegistry;
+import service.search.Completion;
+import service.search.CompletionTrie;
+import service.search.SearchCache;
+import service.search.SearchCacheStats;
+import service.search.TextIndex;
+import service.search.TrigramIndex;
 
+import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
 
-public class LibraryCatalog implements Iterable<Book>, CsvConvertible {
+public class LibraryCatalog implements Iterable<Book>, CsvConvertible, BookHandles {
+    public static final int BOOK_SEGMENT_SIZE = BookStore.SEGMENT_SIZE;
+    private static final int BOOK_LOCK_STRIPES = 64;
+    private static final long DEFAULT_SEARCH_CACHE_BYTES = 32L << 20;
+    private static final int CACHED_BOOK_BYTES = 96;
+    private static final OperationStats FIND_BOOK = LibraryMetrics.operation("catalog.findBook");
+    private static final OperationStats SEARCH = LibraryMetrics.operation("catalog.searchBooks");
+    private static final OperationStats RANKED_SEARCH = LibraryMetrics.operation("catalog.searchBooksRanked");
+    private static final OperationStats COMPLETE = LibraryMetrics.operation("catalog.completeBooks");
+    private static final OperationStats BOOKS_BY_STATUS = LibraryMetrics.operation("catalog.getBooksByStatus");
+    private static final OperationStats OBSERVERS = LibraryMetrics.operation("catalog.getObserversForBook");
 
-    private List<Book> books = new ArrayList<>();
-    private List<User> users = new ArrayList<>();
-    private Map<Book, List<User>> bookObservers = new HashMap<>();
+    private final BookStore books = new BookStore();
+    private final TrigramIndex titleIndex = new TrigramIndex(books::titleContains);
+    private final TextIndex textIndex = new TextIndex();
+    private final CompletionTrie completions = new CompletionTrie();
+    private final SearchCache<List<Book>> searchCache =
+            new SearchCache<>(Long.getLong("library.search.cache.bytes", DEFAULT_SEARCH_CACHE_BYTES), LibraryCatalog::weigh);
+    private final Map<BookStatus, AtomicInteger> bookStatusCounts = new EnumMap<>(BookStatus.class);
+    private volatile ColdBookTier coldTier;
+    private final Object[] bookLocks = new Object[BOOK_LOCK_STRIPES];
+    private final List<User> users = new AppendOnlyList<>();
+    private final Map<String, User> usersById = new ConcurrentHashMap<>();
+    private final AtomicInteger nextUserId = new AtomicInteger(1);
+    private volatile UserLoader userLoader;
+    private volatile AtomicReferenceArray<User> fileUsers = new AtomicReferenceArray<>(0);
+    private final SubscriptionRegistry subscriptions = new SubscriptionRegistry();
+    private final AtomicLong usersVersion = new AtomicLong();
+    private final AtomicLong subscriptionsVersion = new AtomicLong();
+    private NotificationDispatcher notificationDispatcher = NotificationDispatcher.getInstance();
+    private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+
+    {
+        for (BookStatus status : BookStatus.values()) {
+            bookStatusCounts.put(status, new AtomicInteger());
+        }
+        for (int i = 0; i < bookLocks.length; i++) {
+            bookLocks[i] = new Object();
+        }
+    }
 
     public void addBook(Book book) {
-        books.add(book);
+        insertBook(book);
+        awaitDurable();
+    }
+
+    private void insertBook(Book book) {
+        String key = normalizeTitle(book.title());
+        synchronized (books) {
+            books.add(book);
+            titleIndex.add(key);
+            textIndex.add(book.title(), book.author());
+            long borrows = book.status() == BookStatus.BORROWED ? 1 : 0;
+            completions.add(book.title(), borrows);
+            completions.add(book.author(), borrows);
+            bookStatusCounts.get(book.status()).incrementAndGet();
+            if (coldTier != null) {
+                coldTier.shadow(book.title());
+            }
+            searchCache.invalidate(key);
+            listeners.forEach(listener -> listener.bookAdded(book));
+        }
+    }
+
+    public void attachColdTier(ColdBookTier tier) {
+        synchronized (books) {
+            for (int position = 0; position < books.size(); position++) {
+                tier.shadow(books.title(position));
+            }
+            coldTier = tier;
+        }
+    }
+
+    public ColdBookTier getColdTier() {
+        return coldTier;
     }
 
     public void addUser(User user) {
-        users.add(user);
+        synchronized (users) {
+            user.attach(this);
+            users.add(user);
+            usersById.putIfAbsent(user.getId(), user);
+            reserveUserId(user.getId());
+            usersVersion.incrementAndGet();
+            listeners.forEach(listener -> listener.userAdded(user));
+        }
+        awaitDurable();
+    }
+
+    public void markUsersChanged() {
+        usersVersion.incrementAndGet();
+    }
+
+    public long getBooksVersion() {
+        return books.version();
+    }
+
+    public long getBookSegmentVersion(int segment) {
+        return books.segmentVersion(segment);
+    }
+
+    public long getUsersVersion() {
+        return usersVersion.get();
+    }
+
+    public long getSubscriptionsVersion() {
+        return subscriptionsVersion.get();
+    }
+
+    public void addCatalogListener(CatalogListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeCatalogListener(CatalogListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void setUserLoader(UserLoader loader) {
+        synchronized (users) {
+            if (fileUsers.length() > 0) {
+                throw new IllegalStateException("User loader already set");
+            }
+            for (String id : loader.userIds()) {
+                reserveUserId(id);
+            }
+            fileUsers = new AtomicReferenceArray<>(loader.userIds().size());
+            userLoader = loader;
+        }
+    }
+
+    public User findUser(String id) {
+        User user = usersById.get(id);
+        UserLoader loader = userLoader;
+        return user != null || loader == null ? user : loadUser(loader, id);
+    }
+
+    private User loadUser(UserLoader loader, String id) {
+        int ordinal = loader.ordinal(id);
+        if (ordinal < 0) {
+            return usersById.get(id);
+        }
+        AtomicReferenceArray<User> slots = fileUsers;
+        User user = slots.get(ordinal);
+        if (user == null) {
+            User loaded = loader.loadUser(id);
+            if (loaded == null) {
+                return usersById.get(id);
+            }
+            loaded.attach(this);
+            if (slots.compareAndSet(ordinal, null, loaded)) {
+                usersById.putIfAbsent(id, loaded);
+                for (String title : loader.subscriptions(id)) {
+                    subscriptions.subscribe(normalizeTitle(title), loaded);
+                }
+                return loaded;
+            }
+            user = slots.get(ordinal);
+        }
+        usersById.putIfAbsent(id, user);
+        return user;
+    }
+
+    private void loadAllUsers() {
+        UserLoader loader = userLoader;
+        if (loader != null) {
+            List<String> ids = loader.userIds();
+            AtomicReferenceArray<User> slots = fileUsers;
+            for (int ordinal = 0; ordinal < ids.size(); ordinal++) {
+                if (slots.get(ordinal) == null) {
+                    loadUser(loader, ids.get(ordinal));
+                }
+            }
+            synchronized (users) {
+                if (userLoader != loader) {
+                    return;
+                }
+                userLoader = null;
+            }
+            loader.close();
+        }
+    }
+
+    private List<User> orderedUsers() {
+        AtomicReferenceArray<User> slots = fileUsers;
+        int fileCount = slots.length();
+        int size = fileCount + users.size();
+        return new AbstractList<>() {
+            @Override
+            public User get(int index) {
+                Objects.checkIndex(index, size);
+                return index < fileCount ? slots.get(index) : users.get(index - fileCount);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private void loadSubscribers(String title) {
+        UserLoader loader = userLoader;
+        if (loader != null) {
+            for (String id : loader.subscribers(title)) {
+                findUser(id);
+            }
+        }
+    }
+
+    public UserLoader getUserLoader() {
+        return userLoader;
+    }
+
+    public User findLoadedUser(String id) {
+        return usersById.get(id);
+    }
+
+    public List<User> getAddedUsers() {
+        return Collections.unmodifiableList(users);
+    }
+
+    public int countUsers() {
+        return fileUsers.length() + users.size();
+    }
+
+    public String nextUserId() {
+        return String.valueOf(nextUserId.getAndIncrement());
+    }
+
+    private void reserveUserId(String id) {
+        try {
+            int reserved = Integer.parseInt(id) + 1;
+            nextUserId.accumulateAndGet(reserved, Math::max);
+        } catch (NumberFormatException e) {
+            // non-numeric ids never collide with allocated ones
+        }
     }
 
     public List<Book> getBooks() {
-        return books;
+        return Collections.unmodifiableList(books);
     }
 
     public List<User> getUsers() {
-        return users;
+        loadAllUsers();
+        return Collections.unmodifiableList(orderedUsers());
     }
 
     public void setBookObservers(Map<Book, List<User>> bookObservers) {
-        this.bookObservers = bookObservers;
+        subscriptions.clear();
+        subscriptionsVersion.incrementAndGet();
+        bookObservers.forEach((book, observers) -> observers.forEach(observer -> addObserverToBook(book, observer)));
     }
 
     public void addObserverToBook(Book book, User observer) {
-        bookObservers.computeIfAbsent(book, k -> new ArrayList<>()).add(observer);
+        promote(normalizeTitle(book.title()));
+        subscriptions.subscribe(normalizeTitle(book.title()), observer);
+        subscriptionsVersion.incrementAndGet();
+        listeners.forEach(listener -> listener.observerAdded(observer, book));
+        awaitDurable();
     }
 
     public void removeObserverFromBook(Book book, User observer) {
-        List<User> observers = bookObservers.get(book);
-        if (observers != null) {
-            observers.remove(observer);
-            if (observers.isEmpty()) {
-                bookObservers.remove(book);
+        subscriptions.unsubscribe(normalizeTitle(book.title()), observer);
+        subscriptionsVersion.incrementAndGet();
+        listeners.forEach(listener -> listener.observerRemoved(observer, book));
+        awaitDurable();
+    }
+
+    public void removeObserver(User observer) {
+        subscriptions.unsubscribeAll(observer);
+        subscriptionsVersion.incrementAndGet();
+    }
+
+    public List<Book> getWatchedBooks(User observer) {
+        List<Book> watchedBooks = new ArrayList<>();
+        for (String key : subscriptions.getSubscriptions(observer)) {
+            Book book = findBook(key);
+            if (book != null) {
+                watchedBooks.add(book);
             }
         }
+        return watchedBooks;
     }
 
     public void notifyObservers(Book book) {
-        List<User> observers = bookObservers.get(book);
-        if (observers != null) {
-            for (User user : observers) {
-                System.out.println("User " + user.getFirstName() + " " + user.getLastName() +
-                        " notified about book: " + book.title());
-            }
+        loadSubscribers(book.title());
+        List<Notification> notifications = new ArrayList<>();
+        for (User user : subscriptions.getSubscribers(normalizeTitle(book.title()))) {
+            notifications.add(Notification.of(user, book, "User " + user.getFirstName() + " " + user.getLastName() +
+                    " notified about book: " + book.title()));
         }
+        notificationDispatcher.dispatchAll(notifications);
     }
 
     public void changeBookStatus(Book book, BookStatus newStatus) {
         Book updatedBook = book.withStatus(newStatus);
-        books.remove(book);
-        books.add(updatedBook);
+        String key = normalizeTitle(book.title());
+        synchronized (lockFor(key)) {
+            int position = promote(key);
+            if (position < 0) {
+                insertBook(updatedBook);
+            } else {
+                replaceBook(position, updatedBook);
+                listeners.forEach(listener -> listener.bookUpdated(updatedBook));
+            }
+        }
+        awaitDurable();
         notifyObservers(updatedBook);
     }
 
+    public OperationResult borrowBook(User user, String title) {
+        String key = normalizeTitle(title);
+        int position = promote(key);
+        if (position < 0) {
+            return OperationResult.BOOK_NOT_FOUND;
+        }
+        OperationResult result;
+        synchronized (lockFor(key)) {
+            result = borrowAt(user, position);
+        }
+        awaitDurable();
+        return result;
+    }
+
+    public OperationResult returnBook(User user, String title) {
+        String key = normalizeTitle(title);
+        int position = books.indexOf(key);
+        if (position < 0) {
+            return missingResult(key);
+        }
+        OperationResult result;
+        synchronized (lockFor(key)) {
+            result = returnAt(user, position);
+        }
+        awaitDurable();
+        return result;
+    }
+
+    public List<OperationResult> borrowBooks(List<BookRequest> requests) {
+        return applyBatch(requests, this::promote, key -> OperationResult.BOOK_NOT_FOUND, this::borrowAt);
+    }
+
+    public List<OperationResult> returnBooks(List<BookRequest> requests) {
+        return applyBatch(requests, books::indexOf, this::missingResult, this::returnAt);
+    }
+
+    public List<OperationResult> addBooks(List<Book> newBooks) {
+        List<OperationResult> results = new ArrayList<>(newBooks.size());
+        synchronized (books) {
+            for (Book book : newBooks) {
+                if (findBook(book.title()) != null) {
+                    results.add(OperationResult.BOOK_EXISTS);
+                } else {
+                    insertBook(book);
+                    results.add(OperationResult.SUCCESS);
+                }
+            }
+        }
+        awaitDurable();
+        return results;
+    }
+
+    private List<OperationResult> applyBatch(List<BookRequest> requests, ToIntFunction<String> resolve,
+                                             Function<String, OperationResult> missing, BookOperation operation) {
+        OperationResult[] results = new OperationResult[requests.size()];
+        User[] requestUsers = new User[requests.size()];
+        int[] positions = new int[requests.size()];
+        Map<String, User> resolvedUsers = new HashMap<>();
+        Map<String, Integer> resolvedPositions = new HashMap<>();
+        Map<Object, List<Integer>> requestsByLock = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BookRequest request = requests.get(i);
+            String key = normalizeTitle(request.title());
+            requestUsers[i] = resolvedUsers.computeIfAbsent(request.userId(), this::findUser);
+            positions[i] = resolvedPositions.computeIfAbsent(key, resolve::applyAsInt);
+            if (requestUsers[i] == null) {
+                results[i] = OperationResult.USER_NOT_FOUND;
+            } else if (positions[i] < 0) {
+                results[i] = missing.apply(key);
+            } else {
+                requestsByLock.computeIfAbsent(lockFor(key), lock -> new ArrayList<>()).add(i);
+            }
+        }
+        requestsByLock.forEach((lock, indexes) -> {
+            synchronized (lock) {
+                for (int i : indexes) {
+                    results[i] = operation.apply(requestUsers[i], positions[i]);
+                }
+            }
+        });
+        awaitDurable();
+        return List.of(results);
+    }
+
+    private interface BookOperation {
+        OperationResult apply(User user, int position);
+    }
+
+    private OperationResult borrowAt(User user, int position) {
+        Book book = books.get(position);
+        if (book.status() == BookStatus.BORROWED) {
+            return OperationResult.ALREADY_BORROWED;
+        }
+        Book borrowedBook = book.withStatus(BookStatus.BORROWED);
+        if (!user.addBook(position)) {
+            return OperationResult.LIMIT_REACHED;
+        }
+        replaceBook(position, borrowedBook);
+        completions.boost(borrowedBook.title(), 1);
+        completions.boost(borrowedBook.author(), 1);
+        usersVersion.incrementAndGet();
+        listeners.forEach(listener -> listener.bookBorrowed(user, borrowedBook));
+        return OperationResult.SUCCESS;
+    }
+
+    private OperationResult returnAt(User user, int position) {
+        Book book = books.get(position);
+        if (!user.removeBook(position)) {
+            return OperationResult.NOT_BORROWED;
+        }
+        replaceBook(position, book.withStatus(BookStatus.AVAILABLE));
+        usersVersion.incrementAndGet();
+        listeners.forEach(listener -> listener.bookReturned(user, book));
+        return OperationResult.SUCCESS;
+    }
+
+    private OperationResult missingResult(String key) {
+        ColdBookTier tier = coldTier;
+        return tier != null && tier.indexOf(key) >= 0 ? OperationResult.NOT_BORROWED : OperationResult.BOOK_NOT_FOUND;
+    }
+
     public Iterator<Book> iterator() {
-        return new BookIterator(books);
+        return new BookIterator(withColdBooks(books.freeze(null), null));
     }
 
     public Iterator<User> userIterator() {
-        return new UserIterator(users);
+        loadAllUsers();
+        return new UserIterator(orderedUsers());
+    }
+
+    public CatalogSnapshot snapshot() {
+        loadAllUsers();
+        int[] statusCounts = new int[BookStatus.values().length];
+        List<Book> hot = books.freeze(statusCounts);
+        List<Book> frozenBooks = withColdBooks(hot, statusCounts);
+        Map<BookStatus, Integer> counts = new EnumMap<>(BookStatus.class);
+        for (BookStatus status : BookStatus.values()) {
+            counts.put(status, statusCounts[status.ordinal()]);
+        }
+        BookHandles handles = new BookHandles() {
+            @Override
+            public int handleOf(String title) {
+                return books.indexOf(title);
+            }
+
+            @Override
+            public Book book(int handle) {
+                return handle < hot.size() ? hot.get(handle) : books.get(handle);
+            }
+
+            @Override
+            public String title(int handle) {
+                return books.title(handle);
+            }
+        };
+        List<User> frozenUsers = new ArrayList<>();
+        for (User user : orderedUsers()) {
+            frozenUsers.add(user.copy(handles));
+        }
+        return new CatalogSnapshot(frozenBooks, frozenUsers, counts);
+    }
+
+    private List<Book> withColdBooks(List<Book> hot, int[] statusCounts) {
+        ColdBookTier tier = coldTier;
+        if (tier == null) {
+            return hot;
+        }
+        BitSet shadowed = tier.shadowed();
+        BitSet promotedCold = new BitSet(tier.size());
+        BitSet promotedHot = new BitSet(hot.size());
+        Map<Integer, Integer> promoted = new HashMap<>();
+        for (int cold = shadowed.nextSetBit(0); cold >= 0; cold = shadowed.nextSetBit(cold + 1)) {
+            int position = books.indexOf(tier.title(cold));
+            if (position >= 0 && position < hot.size()) {
+                promoted.put(cold, position);
+                promotedCold.set(cold);
+                promotedHot.set(position);
+            }
+        }
+        int last = hot.size() - 1;
+        int lastCold = last < 0 ? -1 : tier.rawIndexOf(BookStore.normalize(hot.get(last).title()));
+        if (lastCold >= 0 && !promotedHot.get(last)) {
+            promoted.put(lastCold, last);
+            promotedCold.set(lastCold);
+            promotedHot.set(last);
+        }
+        int coldSize = tier.size();
+        if (statusCounts != null) {
+            for (int cold = promotedCold.nextClearBit(0); cold < coldSize; cold = promotedCold.nextClearBit(cold + 1)) {
+                statusCounts[tier.status(cold).ordinal()]++;
+            }
+        }
+        int[] hotPositions = IntStream.range(0, hot.size()).filter(position -> !promotedHot.get(position)).toArray();
+        return new AbstractList<>() {
+            @Override
+            public Book get(int index) {
+                Objects.checkIndex(index, size());
+                if (index >= coldSize) {
+                    return hot.get(hotPositions[index - coldSize]);
+                }
+                return promotedCold.get(index) ? hot.get(promoted.get(index)) : tier.get(index);
+            }
+
+            @Override
+            public int size() {
+                return coldSize + hotPositions.length;
+            }
+        };
+    }
+
+    public Page<Book> getBooksPage(int cursor, int pageSize) {
+        if (cursor < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("Invalid page: cursor " + cursor + ", size " + pageSize);
+        }
+        ColdBookTier tier = coldTier;
+        int coldSize = tier == null ? 0 : tier.size();
+        List<Book> page = new ArrayList<>();
+        for (; cursor < coldSize && page.size() < pageSize; cursor++) {
+            int position = tier.isShadowed(cursor) ? books.indexOf(tier.title(cursor)) : -1;
+            page.add(position >= 0 ? books.get(position) : tier.get(cursor));
+        }
+        for (; cursor >= coldSize && cursor - coldSize < books.size() && page.size() < pageSize; cursor++) {
+            int position = cursor - coldSize;
+            if (tier == null || tier.rawIndexOf(BookStore.normalize(books.title(position))) < 0) {
+                page.add(books.get(position));
+            }
+        }
+        return new Page<>(page, cursor < coldSize + books.size() ? cursor : Page.END);
+    }
+
+    public Page<User> getUsersPage(int cursor, int pageSize) {
+        loadAllUsers();
+        return CatalogSnapshot.page(orderedUsers(), cursor, pageSize);
     }
 
 
     public List<Book> searchBooks(String title) {
-        return books.stream()
-                    .filter(book -> book.title().toLowerCase().contains(title.toLowerCase()))
-                    .collect(Collectors.toList());
+        long start = System.nanoTime();
+        try {
+            String query = normalizeTitle(title);
+            List<Book> cached = searchCache.get(query);
+            if (cached != null) {
+                return cached;
+            }
+            long epoch = searchCache.epoch();
+            List<Book> result = new ArrayList<>();
+            titleIndex.search(query, position -> result.add(books.get(position)));
+            ColdBookTier tier = coldTier;
+            if (tier != null) {
+                tier.search(query, position -> result.add(tier.get(position)));
+            }
+            List<Book> unmodifiable = Collections.unmodifiableList(result);
+            searchCache.put(query, unmodifiable, epoch);
+            return unmodifiable;
+        } finally {
+            SEARCH.recordSince(start);
+        }
+    }
+
+    public List<Book> searchBooksRanked(String query, int limit) {
+        long start = System.nanoTime();
+        try {
+            // only hot books are ranked; archived ones are found by searchBooks and ranked once promoted
+            int[] positions = textIndex.search(query, limit);
+            List<Book> result = new ArrayList<>(positions.length);
+            for (int position : positions) {
+                result.add(books.get(position));
+            }
+            return result;
+        } finally {
+            RANKED_SEARCH.recordSince(start);
+        }
+    }
+
+    public List<Completion> completeBooks(String prefix, int limit) {
+        long start = System.nanoTime();
+        try {
+            return completions.complete(prefix, limit);
+        } finally {
+            COMPLETE.recordSince(start);
+        }
+    }
+
+    public SearchCacheStats getSearchCacheStats() {
+        return searchCache.getStats();
+    }
+
+    private static long weigh(List<Book> result) {
+        long bytes = 16L + 8L * result.size();
+        for (Book book : result) {
+            bytes += CACHED_BOOK_BYTES + 2L * book.title().length();
+        }
+        return bytes;
+    }
+
+    public int indexOfBook(String title) {
+        return books.indexOf(title);
+    }
+
+    @Override
+    public int handleOf(String title) {
+        return promote(normalizeTitle(title));
+    }
+
+    @Override
+    public Book book(int handle) {
+        return books.get(handle);
+    }
+
+    @Override
+    public String title(int handle) {
+        return books.title(handle);
     }
 
     public Book findBook(String title) {
-        return books.stream()
-                    .filter(book -> book.title().equalsIgnoreCase(title))
-                    .findFirst()
-                    .orElse(null);
+        long start = System.nanoTime();
+        try {
+            int position = books.indexOf(title);
+            if (position >= 0) {
+                return books.get(position);
+            }
+            ColdBookTier tier = coldTier;
+            int coldPosition = tier == null ? -1 : tier.indexOf(title);
+            return coldPosition < 0 ? null : tier.get(coldPosition);
+        } finally {
+            FIND_BOOK.recordSince(start);
+        }
     }
 
     public void updateBook(Book book) {
-        for (int i = 0; i < books.size(); i++) {
-            if (books.get(i).title().equals(book.title())) {
-                books.set(i, book);
-                break;
+        String key = normalizeTitle(book.title());
+        synchronized (lockFor(key)) {
+            int position = promote(key);
+            if (position >= 0) {
+                replaceBook(position, book);
+                listeners.forEach(listener -> listener.bookUpdated(book));
+            }
+        }
+        awaitDurable();
+    }
+
+    private void replaceBook(int position, Book book) {
+        Book previous = books.set(position, book);
+        if (previous.status() != book.status()) {
+            bookStatusCounts.get(previous.status()).decrementAndGet();
+            bookStatusCounts.get(book.status()).incrementAndGet();
+        }
+        if (!previous.author().equals(book.author())) {
+            completions.remove(previous.author());
+            completions.add(book.author(), 0);
+            textIndex.update(position, new String[]{previous.title(), previous.author()}, new String[]{book.title(), book.author()});
+        }
+        searchCache.invalidate(normalizeTitle(book.title()));
+    }
+
+    private int promote(String key) {
+        int position = books.indexOf(key);
+        ColdBookTier tier = coldTier;
+        if (position >= 0 || tier == null) {
+            return position;
+        }
+        synchronized (books) {
+            position = books.indexOf(key);
+            int coldPosition = tier.indexOf(key);
+            if (position < 0 && coldPosition >= 0) {
+                insertBook(tier.get(coldPosition));
+                position = books.indexOf(key);
             }
         }
+        return position;
+    }
+
+    private void awaitDurable() {
+        for (CatalogListener listener : listeners) {
+            listener.awaitDurable();
+        }
+    }
+
+    private Object lockFor(String key) {
+        int hash = key.hashCode();
+        return bookLocks[(hash ^ (hash >>> 16)) & (BOOK_LOCK_STRIPES - 1)];
+    }
+
+    private static String normalizeTitle(String title) {
+        return title.toLowerCase(Locale.ROOT);
     }
 
     public List<Book> getBooksByStatus(BookStatus bookStatus) {
-        return books.stream().filter(book -> book.status().equals(BookStatus.AVAILABLE)).toList();
+        long start = System.nanoTime();
+        try {
+            List<Book> result = new ArrayList<>(countBooksByStatus(bookStatus));
+            books.forEachWithStatus(bookStatus, position -> result.add(books.get(position)));
+            ColdBookTier tier = coldTier;
+            if (tier != null) {
+                tier.forEachWithStatus(bookStatus, position -> result.add(tier.get(position)));
+            }
+            return result;
+        } finally {
+            BOOKS_BY_STATUS.recordSince(start);
+        }
+    }
+
+    public int countBooksByStatus(BookStatus bookStatus) {
+        ColdBookTier tier = coldTier;
+        return bookStatusCounts.get(bookStatus).get() + (tier == null ? 0 : tier.count(bookStatus));
+    }
+
+    public Map<BookStatus, Integer> getBookStatusCounts() {
+        Map<BookStatus, Integer> counts = new EnumMap<>(BookStatus.class);
+        bookStatusCounts.forEach((status, count) -> counts.put(status, countBooksByStatus(status)));
+        return counts;
     }
 
     @Override
     public String toCsv() {
-        StringBuilder csvBuilder = new StringBuilder();
+        return CsvConvertible.format(this);
+    }
 
-        for (Map.Entry<Book, List<User>> entry : bookObservers.entrySet()) {
-            Book book = entry.getKey();
-            List<User> observers = entry.getValue();
+    @Override
+    public void writeCsv(Appendable out) throws IOException {
+        for (Map.Entry<Book, Set<String>> entry : observedBooks()) {
+            CsvConvertible.appendField(out, entry.getKey().title());
+            out.append(SEPARATOR);
+            CsvConvertible.appendList(out, entry.getValue(), id -> id);
+            out.append(System.lineSeparator());
+        }
+    }
 
-            List<String> observerIds = observers.stream()
-                                                 .map(Observer::getId)
-                                                 .toList();
+    public NotificationDispatcher getNotificationDispatcher() {
+        return notificationDispatcher;
+    }
 
-            String csvLine = book.title() + ";" + observerIds + "\n";
+    public void setNotificationDispatcher(NotificationDispatcher notificationDispatcher) {
+        this.notificationDispatcher = notificationDispatcher;
+    }
 
-            csvBuilder.append(csvLine);
+    public Map<Book, List<User>> getBookObservers() {
+        loadAllUsers();
+        Map<Book, List<User>> bookObservers = new LinkedHashMap<>();
+        for (String key : subscriptions.getSubscribedBooks()) {
+            Book book = findBook(key);
+            List<User> observers = List.copyOf(subscriptions.getSubscribers(key));
+            if (book != null && !observers.isEmpty()) {
+                bookObservers.put(book, observers);
+            }
         }
+        return bookObservers;
+    }
+
+    public Iterable<Map.Entry<Book, Set<String>>> observedBooks() {
+        UserLoader loader = userLoader;
+        return () -> new Iterator<>() {
+            private final Iterator<String> registered = subscriptions.getSubscribedBooks().iterator();
+            private final Iterator<String> pending = loader == null
+                    ? Collections.emptyIterator() : loader.subscribedTitles().iterator();
+            private Map.Entry<Book, Set<String>> next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && (registered.hasNext() || pending.hasNext())) {
+                    if (registered.hasNext()) {
+                        next = observerIds(loader, registered.next());
+                    } else {
+                        String key = normalizeTitle(pending.next());
+                        next = subscriptions.getSubscribers(key).isEmpty() ? observerIds(loader, key) : null;
+                    }
+                }
+                return next != null;
+            }
 
-        return csvBuilder.toString();
+            @Override
+            public Map.Entry<Book, Set<String>> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<Book, Set<String>> entry = next;
+                next = null;
+                return entry;
+            }
+        };
     }
 
-    public Map<Book, List<User>> getBookObservers() {
-        return bookObservers;
+    private Map.Entry<Book, Set<String>> observerIds(UserLoader loader, String key) {
+        Set<String> ids = new LinkedHashSet<>();
+        if (loader != null) {
+            for (String id : loader.subscribers(key)) {
+                if (!usersById.containsKey(id) && loader.ordinal(id) >= 0) {
+                    ids.add(id);
+                }
+            }
+        }
+        for (User user : subscriptions.getSubscribers(key)) {
+            ids.add(user.getId());
+        }
+        Book book = ids.isEmpty() ? null : findBook(key);
+        return book == null ? null : Map.entry(book, ids);
+    }
+
+    public Iterable<User> streamUsers() {
+        UserLoader loader = userLoader;
+        List<User> ordered = orderedUsers();
+        return () -> new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < ordered.size();
+            }
+
+            @Override
+            public User next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                User user = ordered.get(index);
+                if (user == null) {
+                    user = loader.loadUser(loader.userIds().get(index));
+                    if (user == null) {
+                        user = ordered.get(index);
+                    } else {
+                        user.attach(LibraryCatalog.this);
+                    }
+                }
+                index++;
+                return user;
+            }
+        };
     }
 
     public List<User> getObserversForBook(Book book) {
-        Set<Book> books = bookObservers.keySet();
-        List<Book> list = books.stream().filter(book1 -> book1.title().equals(book.title())).toList();
-        List<User> users = new ArrayList<>();
-        for (Book book1 : list){
-           List<User> usersList =  bookObservers.get(book1) ;
-           usersList.stream().spliterator().forEachRemaining(users::add);
-        }
-        return users;
+        long start = System.nanoTime();
+        try {
+            loadSubscribers(book.title());
+            return List.copyOf(subscriptions.getSubscribers(normalizeTitle(book.title())));
+        } finally {
+            OBSERVERS.recordSince(start);
+        }
     }
 
     private static LibraryCatalog instance;
@@ -0,0 +1,11 @@
+package model;
+
+public enum OperationResult {
+    SUCCESS,
+    BOOK_NOT_FOUND,
+    USER_NOT_FOUND,
+    BOOK_EXISTS,
+    ALREADY_BORROWED,
+    LIMIT_REACHED,
+    NOT_BORROWED
+}
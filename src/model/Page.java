@@ -0,0 +1,11 @@
+package model;
+
+import java.util.List;
+
+public record Page<T>(List<T> items, int nextCursor) {
+    public static final int END = -1;
+
+    public boolean hasMore() {
+        return nextCursor != END;
+    }
+}
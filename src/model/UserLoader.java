@@ -0,0 +1,22 @@
+package model;
+
+import model.users.User;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface UserLoader {
+    List<String> userIds();
+
+    int ordinal(String id);
+
+    User loadUser(String id);
+
+    Collection<String> subscriptions(String userId);
+
+    Collection<String> subscribers(String title);
+
+    Collection<String> subscribedTitles();
+
+    void close();
+}
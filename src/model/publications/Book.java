@@ -3,6 +3,8 @@ package model.publications;
 import model.CsvConvertible;
 import model.JsonConvertible;
 
+import java.io.IOException;
+
 public record Book (
     String title,
     String author,
@@ -11,7 +13,17 @@ public record Book (
 ) implements CsvConvertible, JsonConvertible {
     @Override
     public String toCsv() {
-        return title + ";" + author + ";" + year + ";" + status;
+        return CsvConvertible.format(this);
+    }
+
+    @Override
+    public void writeCsv(Appendable out) throws IOException {
+        CsvConvertible.appendField(out, title);
+        out.append(SEPARATOR);
+        CsvConvertible.appendField(out, author);
+        out.append(SEPARATOR);
+        CsvConvertible.appendInt(out, year);
+        out.append(SEPARATOR).append(status.name());
     }
 
     @Override
@@ -21,7 +33,8 @@ public record Book (
 
     @Override
     public String toJson() {
-       return "{ \"title\": \"" + title + "\", \"author\": \"" + author + "\", \"year\": " + year + ", \"status\": \"" + status + "\" }";
+       return "{ \"title\": " + JsonConvertible.quote(title) + ", \"author\": " + JsonConvertible.quote(author) +
+               ", \"year\": " + year + ", \"status\": \"" + status + "\" }";
     }
 
     public Book withStatus(BookStatus newStatus) {
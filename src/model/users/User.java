@@ -1,26 +1,39 @@
 package model.users;
 
+import model.BookHandles;
 import model.CsvConvertible;
 import model.JsonConvertible;
 import model.publications.Book;
+import service.factory.UserFactory;
 import service.observer.Observer;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public abstract class User implements CsvConvertible, JsonConvertible, Observer {
+    private static final ClassValue<String> CSV_TYPES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return type.getSimpleName().toUpperCase();
+        }
+    };
+
     private String id;
     private String firstName;
     private String lastName;
     private String email;
-    private List<Book> borrowedBooks;
+    private BookHandles library;
+    private int[] borrowedBooks = new int[4];
+    private int borrowedCount;
 
     public User(String id, String firstName, String lastName, String email) {
         this.id = id;
         this.firstName = firstName;
         this.lastName = lastName;
         this.email = email;
-        this.borrowedBooks = new ArrayList<>();
     }
 
     public String getId() {
@@ -39,36 +52,112 @@ public abstract class User implements CsvConvertible, JsonConvertible, Observer
         return email;
     }
 
-    public List<Book> getBorrowedBooks() {
-        return borrowedBooks;
+    public synchronized void attach(BookHandles library) {
+        if (this.library != null && this.library != library) {
+            int kept = 0;
+            for (int i = 0; i < borrowedCount; i++) {
+                int handle = library.handleOf(this.library.title(borrowedBooks[i]));
+                if (handle >= 0) {
+                    borrowedBooks[kept++] = handle;
+                }
+            }
+            borrowedCount = kept;
+        }
+        this.library = library;
+    }
+
+    public synchronized User copy(BookHandles library) {
+        User copy = UserFactory.createUser(CSV_TYPES.get(getClass()), id, firstName, lastName, email);
+        copy.library = library;
+        copy.borrowedBooks = Arrays.copyOf(borrowedBooks, borrowedBooks.length);
+        copy.borrowedCount = borrowedCount;
+        return copy;
+    }
+
+    public synchronized List<Book> getBorrowedBooks() {
+        List<Book> books = new ArrayList<>(borrowedCount);
+        for (int i = 0; i < borrowedCount; i++) {
+            books.add(library.book(borrowedBooks[i]));
+        }
+        return Collections.unmodifiableList(books);
+    }
+
+    public synchronized boolean hasBook(int handle) {
+        return indexOf(handle) >= 0;
+    }
+
+    public synchronized Book findBorrowedBook(String title) {
+        for (int i = 0; i < borrowedCount; i++) {
+            if (library.title(borrowedBooks[i]).equalsIgnoreCase(title)) {
+                return library.book(borrowedBooks[i]);
+            }
+        }
+        return null;
     }
 
-    public boolean hasBook(Book book) {
-        return borrowedBooks.contains(book);
+    public synchronized void restoreBook(int handle) {
+        if (borrowedCount == borrowedBooks.length) {
+            borrowedBooks = Arrays.copyOf(borrowedBooks, borrowedCount * 2);
+        }
+        borrowedBooks[borrowedCount++] = handle;
     }
 
-    public void addBook(Book book) {
-        if (borrowedBooks.size() < getMaxBooks()) {
-            borrowedBooks.add(book);
-        } else {
-            System.out.println("You have already borrowed the maximum number of books.");
+    public synchronized boolean addBook(int handle) {
+        if (borrowedCount < getMaxBooks()) {
+            restoreBook(handle);
+            return true;
         }
+        System.out.println("You have already borrowed the maximum number of books.");
+        return false;
     }
 
-    public void removeBook(Book book) {
-        borrowedBooks.remove(book);
+    public synchronized boolean removeBook(int handle) {
+        int index = indexOf(handle);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(borrowedBooks, index + 1, borrowedBooks, index, --borrowedCount - index);
+        return true;
+    }
+
+    private int indexOf(int handle) {
+        for (int i = 0; i < borrowedCount; i++) {
+            if (borrowedBooks[i] == handle) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     public abstract int getMaxBooks();
 
     @Override
     public String toCsv() {
-        return getClass().getSimpleName().toUpperCase() + ";" + id + ";" + firstName + ";" + lastName + ";" + email + ";" + borrowedBooks.stream().map(Book::title).toList();
+        return CsvConvertible.format(this);
+    }
+
+    @Override
+    public synchronized void writeCsv(Appendable out) throws IOException {
+        out.append(CSV_TYPES.get(getClass())).append(SEPARATOR);
+        CsvConvertible.appendField(out, id);
+        out.append(SEPARATOR);
+        CsvConvertible.appendField(out, firstName);
+        out.append(SEPARATOR);
+        CsvConvertible.appendField(out, lastName);
+        out.append(SEPARATOR);
+        CsvConvertible.appendField(out, email);
+        out.append(SEPARATOR);
+        List<String> titles = new ArrayList<>(borrowedCount);
+        for (int i = 0; i < borrowedCount; i++) {
+            titles.add(library.title(borrowedBooks[i]));
+        }
+        CsvConvertible.appendList(out, titles, title -> title);
     }
 
     @Override
     public String toJson() {
-        return "{ \"id\": \"" + id + "\", \"firstName\": \"" + firstName + "\", \"lastName\": \"" + lastName + "\", \"email\": \"" + email + "\" }";
+        return "{ \"id\": " + JsonConvertible.quote(id) + ", \"firstName\": " + JsonConvertible.quote(firstName) +
+                ", \"lastName\": " + JsonConvertible.quote(lastName) + ", \"email\": " + JsonConvertible.quote(email) + " }";
     }
 
     @Override
@@ -78,7 +167,7 @@ public abstract class User implements CsvConvertible, JsonConvertible, Observer
     }
 
     @Override
-    public String toString() {
-        return  id + " " + firstName + " " + lastName + " " + email + " " + borrowedBooks ;
+    public synchronized String toString() {
+        return  id + " " + firstName + " " + lastName + " " + email + " " + getBorrowedBooks() ;
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package service.iterator;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+public class SnapshotSpliterator<T> implements Spliterator<T> {
+    private static final int MIN_SPLIT_SIZE = 1024;
+
+    private final List<T> items;
+    private int origin;
+    private final int fence;
+
+    public SnapshotSpliterator(List<T> items) {
+        this(items, 0, items.size());
+    }
+
+    private SnapshotSpliterator(List<T> items, int origin, int fence) {
+        this.items = items;
+        this.origin = origin;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (origin >= fence) {
+            return false;
+        }
+        action.accept(items.get(origin++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        for (int position = origin; position < fence; position++) {
+            action.accept(items.get(position));
+        }
+        origin = fence;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        int middle = (origin + fence) >>> 1;
+        if (middle - origin < MIN_SPLIT_SIZE) {
+            return null;
+        }
+        Spliterator<T> prefix = new SnapshotSpliterator<>(items, origin, middle);
+        origin = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - origin;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+    }
+}
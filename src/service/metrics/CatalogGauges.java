@@ -0,0 +1,109 @@
+package service.metrics;
+
+import model.ColdBookTier;
+import model.LibraryCatalog;
+import model.publications.BookStatus;
+import service.search.SearchCacheStats;
+
+public class CatalogGauges implements CatalogGaugesMBean {
+    private volatile LibraryCatalog catalog;
+
+    public void setCatalog(LibraryCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    @Override
+    public int getBooks() {
+        LibraryCatalog current = catalog;
+        return current == null ? 0 : current.getBooks().size() + getColdBooks();
+    }
+
+    @Override
+    public int getColdBooks() {
+        LibraryCatalog current = catalog;
+        ColdBookTier tier = current == null ? null : current.getColdTier();
+        return tier == null ? 0 : tier.size() - tier.shadowedCount();
+    }
+
+    @Override
+    public int getUsers() {
+        LibraryCatalog current = catalog;
+        return current == null ? 0 : current.countUsers();
+    }
+
+    @Override
+    public int getAvailableBooks() {
+        return count(BookStatus.AVAILABLE);
+    }
+
+    @Override
+    public int getBorrowedBooks() {
+        return count(BookStatus.BORROWED);
+    }
+
+    @Override
+    public int getMissingBooks() {
+        return count(BookStatus.MISSING);
+    }
+
+    @Override
+    public int getQueuedNotifications() {
+        LibraryCatalog current = catalog;
+        return current == null ? 0 : current.getNotificationDispatcher().getStats().queueDepth();
+    }
+
+    @Override
+    public long getDroppedNotifications() {
+        LibraryCatalog current = catalog;
+        return current == null ? 0 : current.getNotificationDispatcher().getStats().dropped();
+    }
+
+    @Override
+    public double getSearchCacheHitRate() {
+        SearchCacheStats stats = searchCacheStats();
+        return stats == null ? 0 : stats.hitRate();
+    }
+
+    @Override
+    public long getSearchCacheEvictions() {
+        SearchCacheStats stats = searchCacheStats();
+        return stats == null ? 0 : stats.evictions();
+    }
+
+    @Override
+    public long getSearchCacheInvalidations() {
+        SearchCacheStats stats = searchCacheStats();
+        return stats == null ? 0 : stats.invalidations();
+    }
+
+    @Override
+    public int getSearchCacheEntries() {
+        SearchCacheStats stats = searchCacheStats();
+        return stats == null ? 0 : stats.entries();
+    }
+
+    @Override
+    public long getSearchCacheBytes() {
+        SearchCacheStats stats = searchCacheStats();
+        return stats == null ? 0 : stats.estimatedBytes();
+    }
+
+    private SearchCacheStats searchCacheStats() {
+        LibraryCatalog current = catalog;
+        return current == null ? null : current.getSearchCacheStats();
+    }
+
+    private int count(BookStatus status) {
+        LibraryCatalog current = catalog;
+        return current == null ? 0 : current.countBooksByStatus(status);
+    }
+
+    @Override
+    public String toString() {
+        SearchCacheStats stats = searchCacheStats();
+        return String.format("catalog: books %d (cold %d), users %d, available %d, borrowed %d, missing %d, " +
+                        "queued notifications %d, dropped notifications %d%nsearch cache: %s", getBooks(), getColdBooks(), getUsers(),
+                getAvailableBooks(), getBorrowedBooks(), getMissingBooks(), getQueuedNotifications(), getDroppedNotifications(),
+                stats == null ? "none" : stats);
+    }
+}
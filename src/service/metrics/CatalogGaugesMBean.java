@@ -0,0 +1,29 @@
+package service.metrics;
+
+public interface CatalogGaugesMBean {
+    int getBooks();
+
+    int getColdBooks();
+
+    int getUsers();
+
+    int getAvailableBooks();
+
+    int getBorrowedBooks();
+
+    int getMissingBooks();
+
+    int getQueuedNotifications();
+
+    long getDroppedNotifications();
+
+    double getSearchCacheHitRate();
+
+    long getSearchCacheEvictions();
+
+    long getSearchCacheInvalidations();
+
+    int getSearchCacheEntries();
+
+    long getSearchCacheBytes();
+}
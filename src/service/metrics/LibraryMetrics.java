@@ -0,0 +1,97 @@
+package service.metrics;
+
+import model.LibraryCatalog;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class LibraryMetrics {
+    private static final String DOMAIN = "library";
+
+    private static LibraryMetrics instance;
+
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private final CatalogGauges catalogGauges = new CatalogGauges();
+    private ScheduledExecutorService dumpScheduler;
+
+    private LibraryMetrics() {
+        register(catalogGauges, "type=Catalog");
+    }
+
+    public static synchronized LibraryMetrics getInstance() {
+        if (instance == null) {
+            instance = new LibraryMetrics();
+        }
+        return instance;
+    }
+
+    public static OperationStats operation(String name) {
+        return getInstance().operations.computeIfAbsent(name, key -> {
+            OperationStats stats = new OperationStats(key);
+            getInstance().register(stats, "type=Operation,name=" + key);
+            return stats;
+        });
+    }
+
+    public void watchCatalog(LibraryCatalog catalog) {
+        catalogGauges.setCatalog(catalog);
+    }
+
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(Instant.now()).append(System.lineSeparator());
+        report.append(catalogGauges).append(System.lineSeparator());
+        for (OperationStats stats : new TreeMap<>(operations).values()) {
+            report.append(stats).append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+
+    public synchronized void scheduleDump(Path file, Duration interval) {
+        if (dumpScheduler == null) {
+            dumpScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        dumpScheduler.scheduleWithFixedDelay(() -> dump(file), interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void dump(Path file) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.writeString(temp, report(), StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.out.println("Error writing metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void register(Object mbean, String properties) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(mbean, name);
+            }
+        } catch (JMException e) {
+            System.out.println("Could not register metrics " + properties + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package service.metrics;
+
+public class OperationStats implements OperationStatsMBean {
+    private final String name;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private volatile long since = System.nanoTime();
+
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void recordSince(long startNanos) {
+        histogram.record(System.nanoTime() - startNanos);
+    }
+
+    public void record(long nanos) {
+        histogram.record(nanos);
+    }
+
+    @Override
+    public long getCount() {
+        return histogram.snapshot().count();
+    }
+
+    @Override
+    public double getThroughputPerSecond() {
+        double seconds = (System.nanoTime() - since) / 1e9;
+        return seconds <= 0 ? 0 : getCount() / seconds;
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return histogram.snapshot().mean() / 1_000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return histogram.snapshot().percentile(50) / 1_000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return histogram.snapshot().percentile(99) / 1_000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return histogram.snapshot().percentile(99.9) / 1_000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return histogram.snapshot().max() / 1_000.0;
+    }
+
+    @Override
+    public void reset() {
+        histogram.reset();
+        since = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        double seconds = (System.nanoTime() - since) / 1e9;
+        return String.format("%s: count %d, %.1f/s, mean %.1f us, p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us",
+                name, snapshot.count(), seconds <= 0 ? 0 : snapshot.count() / seconds, snapshot.mean() / 1_000.0,
+                snapshot.percentile(50) / 1_000.0, snapshot.percentile(99) / 1_000.0,
+                snapshot.percentile(99.9) / 1_000.0, snapshot.max() / 1_000.0);
+    }
+}
@@ -0,0 +1,19 @@
+package service.metrics;
+
+public interface OperationStatsMBean {
+    long getCount();
+
+    double getThroughputPerSecond();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    void reset();
+}
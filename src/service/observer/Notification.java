@@ -0,0 +1,22 @@
+package service.observer;
+
+import model.publications.Book;
+
+public record Notification(
+    Observer recipient,
+    Book book,
+    String message,
+    long enqueuedAt
+) {
+    public static Notification of(Observer recipient, Book book, String message) {
+        return new Notification(recipient, book, message, System.nanoTime());
+    }
+
+    public void deliver(StringBuilder output) {
+        if (message != null) {
+            output.append(message).append(System.lineSeparator());
+        } else {
+            recipient.update(book);
+        }
+    }
+}
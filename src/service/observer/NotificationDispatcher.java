@@ -0,0 +1,131 @@
+package service.observer;
+
+import model.publications.Book;
+import service.metrics.LibraryMetrics;
+import service.metrics.OperationStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+public class NotificationDispatcher {
+    private static final int DEFAULT_CAPACITY = 10_000;
+    private static final int MAX_BATCH = 512;
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+    private static final long FLUSH_TIMEOUT_MILLIS = 5_000;
+    private static final OperationStats DELIVERY = LibraryMetrics.operation("notification.delivery");
+
+    private static NotificationDispatcher instance;
+
+    private final BlockingQueue<Notification> queue;
+    private final Thread worker;
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public NotificationDispatcher(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        worker = new Thread(this::run, "notification-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public static synchronized NotificationDispatcher getInstance() {
+        if (instance == null) {
+            instance = new NotificationDispatcher(DEFAULT_CAPACITY);
+        }
+        return instance;
+    }
+
+    public void dispatch(Observer recipient, Book book) {
+        dispatchAll(List.of(Notification.of(recipient, book, null)));
+    }
+
+    public void dispatch(Observer recipient, Book book, String message) {
+        dispatchAll(List.of(Notification.of(recipient, book, message)));
+    }
+
+    public void dispatchAll(List<Notification> notifications) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(OFFER_TIMEOUT_MILLIS);
+        for (Notification notification : notifications) {
+            enqueued.incrementAndGet();
+            boolean accepted;
+            try {
+                accepted = queue.offer(notification, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+            if (!accepted) {
+                dropped.increment();
+            }
+        }
+    }
+
+    public boolean flush() {
+        long target = enqueued.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_TIMEOUT_MILLIS);
+        while (completed.get() + dropped.sum() < target) {
+            if (!worker.isAlive() || System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    public NotificationStats getStats() {
+        long delivered = completed.get() - failed.sum();
+        long count = completed.get();
+        return new NotificationStats(queue.size(), delivered, dropped.sum(), failed.sum(), batches.sum(),
+                count == 0 ? 0 : totalLatencyNanos.get() / 1_000.0 / count, maxLatencyNanos.get() / 1_000.0);
+    }
+
+    private void run() {
+        List<Notification> batch = new ArrayList<>(MAX_BATCH);
+        StringBuilder output = new StringBuilder();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            deliver(batch, output);
+            batch.clear();
+        }
+    }
+
+    private void deliver(List<Notification> batch, StringBuilder output) {
+        for (Notification notification : batch) {
+            if (notification.message() == null && !output.isEmpty()) {
+                System.out.print(output);
+                output.setLength(0);
+            }
+            try {
+                notification.deliver(output);
+            } catch (RuntimeException e) {
+                failed.increment();
+            }
+            long latency = System.nanoTime() - notification.enqueuedAt();
+            DELIVERY.record(latency);
+            totalLatencyNanos.addAndGet(latency);
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        }
+        if (!output.isEmpty()) {
+            System.out.print(output);
+            output.setLength(0);
+        }
+        batches.increment();
+        completed.addAndGet(batch.size());
+    }
+}
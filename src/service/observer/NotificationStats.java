@@ -0,0 +1,17 @@
+package service.observer;
+
+public record NotificationStats(
+    int queueDepth,
+    long delivered,
+    long dropped,
+    long failed,
+    long batches,
+    double averageLatencyMicros,
+    double maxLatencyMicros
+) {
+    @Override
+    public String toString() {
+        return "queue: " + queueDepth + ", delivered: " + delivered + ", dropped: " + dropped + ", failed: " + failed +
+                ", batches: " + batches + ", avg latency: " + averageLatencyMicros + " us, max latency: " + maxLatencyMicros + " us";
+    }
+}
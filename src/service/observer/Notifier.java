@@ -9,24 +9,23 @@ import java.util.stream.Collectors;
 public class Notifier {
 
     public static void sendInfo(Book book, List<User> users) {
+        NotificationDispatcher dispatcher = NotificationDispatcher.getInstance();
         List<User> usersToNotify = users.stream()
                                         .filter(user -> user instanceof Observer)
                                         .toList();
 
         if (usersToNotify.isEmpty()) {
-            System.out.println("No users are observing this book.");
+            dispatcher.dispatch(null, book, "No users are observing this book.");
         }
 
-        for (User user : usersToNotify) {
-            user.update(book);
-        }
+        dispatcher.dispatchAll(usersToNotify.stream().map(user -> Notification.of(user, book, null)).toList());
 
         String emails = usersToNotify.stream()
                                      .map(User::getEmail)
                                      .collect(Collectors.joining(", "));
 
-        System.out.println("To: " + emails);
-        System.out.println("Topic: New book status");
-        System.out.println("Content: Book '" + book.title() + "' has a new status: " + book.status());
+        dispatcher.dispatch(null, book, "To: " + emails + System.lineSeparator() +
+                "Topic: New book status" + System.lineSeparator() +
+                "Content: Book '" + book.title() + "' has a new status: " + book.status());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package service.observer;
+
+import model.users.User;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class SubscriptionRegistry {
+    private final Map<String, Set<User>> subscribersByBook = new ConcurrentHashMap<>();
+    private final Map<User, Set<String>> booksBySubscriber = new ConcurrentHashMap<>();
+
+    public void subscribe(String bookKey, User user) {
+        add(subscribersByBook, bookKey, user);
+        add(booksBySubscriber, user, bookKey);
+    }
+
+    public void unsubscribe(String bookKey, User user) {
+        remove(subscribersByBook, bookKey, user);
+        remove(booksBySubscriber, user, bookKey);
+    }
+
+    public void unsubscribeAll(User user) {
+        Set<String> bookKeys = booksBySubscriber.remove(user);
+        if (bookKeys != null) {
+            for (String bookKey : bookKeys) {
+                remove(subscribersByBook, bookKey, user);
+            }
+        }
+    }
+
+    public Set<User> getSubscribers(String bookKey) {
+        Set<User> subscribers = subscribersByBook.get(bookKey);
+        return subscribers == null ? Set.of() : Collections.unmodifiableSet(subscribers);
+    }
+
+    public Set<String> getSubscriptions(User user) {
+        Set<String> bookKeys = booksBySubscriber.get(user);
+        return bookKeys == null ? Set.of() : Collections.unmodifiableSet(bookKeys);
+    }
+
+    public Set<String> getSubscribedBooks() {
+        return Collections.unmodifiableSet(subscribersByBook.keySet());
+    }
+
+    public void clear() {
+        subscribersByBook.clear();
+        booksBySubscriber.clear();
+    }
+
+    private static <K, V> void add(Map<K, Set<V>> map, K key, V value) {
+        map.compute(key, (k, values) -> {
+            Set<V> result = values == null ? ConcurrentHashMap.newKeySet() : values;
+            result.add(value);
+            return result;
+        });
+    }
+
+    private static <K, V> void remove(Map<K, Set<V>> map, K key, V value) {
+        map.computeIfPresent(key, (k, values) -> {
+            values.remove(value);
+            return values.isEmpty() ? null : values;
+        });
+    }
+}
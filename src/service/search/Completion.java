@@ -0,0 +1,4 @@
+package service.search;
+
+public record Completion(String text, long score) {
+}
@@ -0,0 +1,337 @@
+package service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+public class CompletionTrie {
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Terminal[] NO_TERMINALS = new Terminal[0];
+
+    private final Node root = new Node("", 0, 0, 0);
+    private final Map<String, Terminal> terminals = new HashMap<>();
+    private volatile int size;
+
+    public synchronized void add(String text, long weight) {
+        Terminal terminal = terminals.get(text);
+        if (terminal == null) {
+            terminal = new Terminal(text, fold(text));
+            terminals.put(text, terminal);
+            size = terminals.size();
+        }
+        terminal.references++;
+        terminal.score += weight;
+        index(terminal);
+    }
+
+    public synchronized void boost(String text, long weight) {
+        Terminal terminal = terminals.get(text);
+        if (terminal != null) {
+            terminal.score += weight;
+            index(terminal);
+        }
+    }
+
+    public synchronized void remove(String text) {
+        Terminal terminal = terminals.get(text);
+        if (terminal == null || --terminal.references > 0) {
+            return;
+        }
+        terminals.remove(text);
+        size = terminals.size();
+        for (int start : wordStarts(terminal.key)) {
+            unlink(root, terminal.key, start, terminal);
+        }
+    }
+
+    public List<Completion> complete(String prefix, int limit) {
+        String key = fold(prefix);
+        Node node = root;
+        int offset = 0;
+        while (offset < key.length()) {
+            Node[] children = node.children;
+            int index = find(children, key.charAt(offset));
+            if (index < 0) {
+                return List.of();
+            }
+            node = children[index];
+            int common = commonLength(node, key, offset);
+            if (common < node.length() && offset + common < key.length()) {
+                return List.of();
+            }
+            offset += common;
+        }
+
+        List<Completion> completions = new ArrayList<>(Math.max(0, Math.min(limit, size)));
+        Set<Terminal> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        int shared = node.depth();
+        PriorityQueue<Candidate> queue = new PriorityQueue<>((a, b) -> {
+            int byScore = Long.compare(b.score(), a.score());
+            if (byScore != 0) {
+                return byScore;
+            }
+            int byKey = compareKeys(a.node(), b.node(), shared);
+            return byKey != 0 || a.terminal() == null || b.terminal() == null
+                    ? byKey : a.terminal().text.compareTo(b.terminal().text);
+        });
+        queue.add(Candidate.node(node));
+        while (!queue.isEmpty() && completions.size() < limit) {
+            Candidate candidate = queue.poll();
+            if (candidate.terminal() != null) {
+                if (seen.add(candidate.terminal())) {
+                    completions.add(new Completion(candidate.terminal().text, candidate.score()));
+                }
+            } else if (candidate.siblings() != null) {
+                Node[] siblings = candidate.siblings();
+                int best = candidate.from();
+                while (siblings[best].maxScore < candidate.score()) {
+                    best++;
+                }
+                queue.add(Candidate.node(siblings[best]));
+                if (candidate.from() < best) {
+                    queue.add(Candidate.siblings(siblings, candidate.from(), best));
+                }
+                if (best + 1 < candidate.to()) {
+                    queue.add(Candidate.siblings(siblings, best + 1, candidate.to()));
+                }
+            } else {
+                expand(candidate.node(), queue);
+            }
+        }
+        return completions;
+    }
+
+    private static void expand(Node node, PriorityQueue<Candidate> queue) {
+        for (Terminal terminal : node.terminals) {
+            queue.add(Candidate.terminal(node, terminal));
+        }
+        Node[] children = node.children;
+        if (children.length > 0) {
+            queue.add(Candidate.siblings(children, 0, children.length));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    static String fold(String text) {
+        if (text.chars().allMatch(c -> c < 0x80)) {
+            return text.toLowerCase(Locale.ROOT);
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            int type = Character.getType(c);
+            if (type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK || type == Character.COMBINING_SPACING_MARK) {
+                continue;
+            }
+            folded.append(c == 'ł' || c == 'Ł' ? 'l' : Character.toLowerCase(c));
+        }
+        return folded.toString();
+    }
+
+    private static List<Integer> wordStarts(String key) {
+        List<Integer> starts = new ArrayList<>();
+        for (int i = 0; i < key.length(); i++) {
+            if (i == 0 || Character.isLetterOrDigit(key.charAt(i)) && !Character.isLetterOrDigit(key.charAt(i - 1))) {
+                starts.add(i);
+            }
+        }
+        return starts;
+    }
+
+    private void index(Terminal terminal) {
+        for (int start : wordStarts(terminal.key)) {
+            root.raise(insert(root, terminal.key, start, start, terminal));
+        }
+    }
+
+    private static long insert(Node parent, String key, int origin, int offset, Terminal terminal) {
+        if (offset == key.length()) {
+            if (!Arrays.asList(parent.terminals).contains(terminal)) {
+                Terminal[] grown = Arrays.copyOf(parent.terminals, parent.terminals.length + 1);
+                grown[grown.length - 1] = terminal;
+                parent.terminals = grown;
+            }
+            return terminal.score;
+        }
+
+        Node[] children = parent.children;
+        int index = find(children, key.charAt(offset));
+        if (index < 0) {
+            Node leaf = new Node(key, origin, offset, key.length());
+            leaf.terminals = new Terminal[]{terminal};
+            leaf.maxScore = terminal.score;
+            int insertion = -index - 1;
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, insertion);
+            grown[insertion] = leaf;
+            System.arraycopy(children, insertion, grown, insertion + 1, children.length - insertion);
+            parent.children = grown;
+            return terminal.score;
+        }
+
+        Node child = children[index];
+        int common = commonLength(child, key, offset);
+        if (common == child.length()) {
+            long score = insert(child, key, origin, offset + common, terminal);
+            child.raise(score);
+            return score;
+        }
+
+        Node middle = child.split(common);
+        long score = insert(middle, key, origin, offset + common, terminal);
+        middle.raise(score);
+        Node[] replaced = Arrays.copyOf(children, children.length);
+        replaced[index] = middle;
+        parent.children = replaced;
+        return score;
+    }
+
+    private static void unlink(Node parent, String key, int offset, Terminal terminal) {
+        Node[] children = parent.children;
+        int index = offset < key.length() ? find(children, key.charAt(offset)) : -1;
+        if (index < 0) {
+            return;
+        }
+        Node child = children[index];
+        int common = commonLength(child, key, offset);
+        if (common < child.length()) {
+            return;
+        }
+        if (offset + common == key.length()) {
+            child.terminals = Arrays.stream(child.terminals).filter(t -> t != terminal).toArray(Terminal[]::new);
+        } else {
+            unlink(child, key, offset + common, terminal);
+        }
+        if (child.terminals.length == 0 && child.children.length == 0) {
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, shrunk.length - index);
+            parent.children = shrunk;
+        }
+    }
+
+    private static int find(Node[] children, char first) {
+        int low = 0;
+        int high = children.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char candidate = children[middle].first();
+            if (candidate < first) {
+                low = middle + 1;
+            } else if (candidate > first) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -low - 1;
+    }
+
+    private static int commonLength(Node node, String key, int offset) {
+        int common = 0;
+        int length = Math.min(node.length(), key.length() - offset);
+        while (common < length && node.text.charAt(node.start + common) == key.charAt(offset + common)) {
+            common++;
+        }
+        return common;
+    }
+
+    private static int compareKeys(Node a, Node b, int from) {
+        int length = Math.min(a.depth(), b.depth());
+        for (int i = from; i < length; i++) {
+            int difference = a.text.charAt(a.origin + i) - b.text.charAt(b.origin + i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return a.depth() - b.depth();
+    }
+
+    private static final class Terminal {
+        private final String text;
+        private final String key;
+        private volatile long score;
+        private int references;
+
+        private Terminal(String text, String key) {
+            this.text = text;
+            this.key = key;
+        }
+    }
+
+    private record Candidate(Node node, long score, Terminal terminal, Node[] siblings, int from, int to) {
+        private static Candidate terminal(Node node, Terminal terminal) {
+            return new Candidate(node, terminal.score, terminal, null, 0, 0);
+        }
+
+        private static Candidate node(Node node) {
+            return new Candidate(node, node.maxScore, null, null, 0, 0);
+        }
+
+        private static Candidate siblings(Node[] siblings, int from, int to) {
+            long bound = Long.MIN_VALUE;
+            for (int i = from; i < to; i++) {
+                bound = Math.max(bound, siblings[i].maxScore);
+            }
+            return new Candidate(siblings[from], bound, null, siblings, from, to);
+        }
+    }
+
+    private static final class Node {
+        private final String text;
+        private final int origin;
+        private final int start;
+        private final int end;
+        private volatile Node[] children = NO_CHILDREN;
+        private volatile Terminal[] terminals = NO_TERMINALS;
+        private volatile long maxScore;
+
+        private Node(String text, int origin, int start, int end) {
+            this.text = text;
+            this.origin = origin;
+            this.start = start;
+            this.end = end;
+        }
+
+        private int length() {
+            return end - start;
+        }
+
+        private int depth() {
+            return end - origin;
+        }
+
+        private char first() {
+            return text.charAt(start);
+        }
+
+        private void raise(long score) {
+            if (score > maxScore) {
+                maxScore = score;
+            }
+        }
+
+        private Node split(int length) {
+            Node tail = new Node(text, origin, start + length, end);
+            tail.children = children;
+            tail.terminals = terminals;
+            tail.maxScore = maxScore;
+            Node middle = new Node(text, origin, start, start + length);
+            middle.children = new Node[]{tail};
+            middle.maxScore = maxScore;
+            return middle;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package service.search;
+
+import java.util.Arrays;
+
+public class PostingList {
+    private volatile int[] positions = new int[4];
+    private volatile int size;
+
+    public void add(int position) {
+        int count = size;
+        int[] current = positions;
+        if (count > 0 && current[count - 1] == position) {
+            return;
+        }
+        if (count == current.length) {
+            current = Arrays.copyOf(current, count * 2);
+            current[count] = position;
+            positions = current;
+        } else {
+            current[count] = position;
+        }
+        size = count + 1;
+    }
+
+    public int get(int index) {
+        return positions[index];
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,234 @@
+package service.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+public class SearchCache<V> {
+    private static final int ENTRY_OVERHEAD = 128;
+    private static final int SEGMENTS = 16;
+    private static final int LOG_SIZE = 1024;
+    private static final Object ALL = new Object();
+
+    private final long capacityBytes;
+    private final ToLongFunction<V> weigher;
+    private final Segment<V>[] segments;
+    private final Map<Long, Set<String>> queriesByGram = new ConcurrentHashMap<>();
+    private final Set<String> shortQueries = ConcurrentHashMap.newKeySet();
+    private final AtomicReferenceArray<Object> invalidationLog = new AtomicReferenceArray<>(LOG_SIZE);
+    private volatile long epoch;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public SearchCache(long capacityBytes, ToLongFunction<V> weigher) {
+        this.capacityBytes = capacityBytes;
+        this.weigher = weigher;
+        segments = newSegments(SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>(capacityBytes / SEGMENTS);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <V> Segment<V>[] newSegments(int count) {
+        return (Segment<V>[]) new Segment[count];
+    }
+
+    public V get(String query) {
+        Entry<V> entry = segmentFor(query).entries.get(query);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    public void put(String query, V value, long startEpoch) {
+        Segment<V> segment = segmentFor(query);
+        long bytes = ENTRY_OVERHEAD + 2L * query.length() + weigher.applyAsLong(value);
+        if (bytes > segment.capacityBytes || invalidatedSince(query, startEpoch)) {
+            return;
+        }
+        Entry<V> entry = new Entry<>(query, value, bytes);
+        synchronized (segment) {
+            if (segment.entries.putIfAbsent(query, entry) != null) {
+                return;
+            }
+            segment.clock.add(entry);
+            segment.bytes += bytes;
+            index(query);
+            while (segment.bytes > segment.capacityBytes) {
+                Entry<V> candidate = segment.clock.poll();
+                if (candidate.removed) {
+                    segment.ghosts--;
+                    continue;
+                }
+                if (candidate.referenced && candidate != entry) {
+                    candidate.referenced = false;
+                    segment.clock.add(candidate);
+                    continue;
+                }
+                remove(segment, candidate, false);
+                evictions.increment();
+            }
+        }
+        if (invalidatedSince(query, startEpoch)) {
+            synchronized (segment) {
+                if (segment.entries.get(query) == entry) {
+                    remove(segment, entry, true);
+                }
+            }
+        }
+    }
+
+    public void invalidate(String text) {
+        log(text);
+        List<String> stale = new ArrayList<>();
+        for (String query : shortQueries) {
+            if (TrigramIndex.containsIgnoreCase(text, query)) {
+                stale.add(query);
+            }
+        }
+        for (int i = 0; i + TrigramIndex.GRAM_LENGTH <= text.length(); i++) {
+            Set<String> candidates = queriesByGram.get(TrigramIndex.gram(text, i));
+            if (candidates != null) {
+                for (String query : candidates) {
+                    if (text.startsWith(query, i)) {
+                        stale.add(query);
+                    }
+                }
+            }
+        }
+        for (String query : stale) {
+            Segment<V> segment = segmentFor(query);
+            synchronized (segment) {
+                Entry<V> entry = segment.entries.get(query);
+                if (entry != null) {
+                    remove(segment, entry, true);
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        log(ALL);
+        for (Segment<V> segment : segments) {
+            synchronized (segment) {
+                for (Entry<V> entry : segment.entries.values()) {
+                    remove(segment, entry, true);
+                }
+            }
+        }
+    }
+
+    public SearchCacheStats getStats() {
+        int entries = 0;
+        long bytes = 0;
+        for (Segment<V> segment : segments) {
+            synchronized (segment) {
+                entries += segment.entries.size();
+                bytes += segment.bytes;
+            }
+        }
+        return new SearchCacheStats(hits.sum(), misses.sum(), evictions.sum(), invalidations.sum(), entries, bytes, capacityBytes);
+    }
+
+    private synchronized void log(Object text) {
+        long next = epoch + 1;
+        invalidationLog.set((int) (next & (LOG_SIZE - 1)), text);
+        epoch = next;
+    }
+
+    private boolean invalidatedSince(String query, long startEpoch) {
+        long end = epoch;
+        if (end - startEpoch >= LOG_SIZE) {
+            return true;
+        }
+        for (long sequence = startEpoch + 1; sequence <= end; sequence++) {
+            Object text = invalidationLog.get((int) (sequence & (LOG_SIZE - 1)));
+            if (text == ALL || TrigramIndex.containsIgnoreCase((String) text, query)) {
+                return true;
+            }
+        }
+        return epoch - startEpoch >= LOG_SIZE;
+    }
+
+    private void index(String query) {
+        if (query.length() < TrigramIndex.GRAM_LENGTH) {
+            shortQueries.add(query);
+        } else {
+            queriesByGram.compute(TrigramIndex.gram(query, 0), (gram, queries) -> {
+                Set<String> indexed = queries == null ? ConcurrentHashMap.newKeySet() : queries;
+                indexed.add(query);
+                return indexed;
+            });
+        }
+    }
+
+    private void remove(Segment<V> segment, Entry<V> entry, boolean queued) {
+        segment.entries.remove(entry.query, entry);
+        entry.removed = true;
+        segment.bytes -= entry.bytes;
+        if (queued && ++segment.ghosts > segment.entries.size()) {
+            segment.clock.removeIf(candidate -> candidate.removed);
+            segment.ghosts = 0;
+        }
+        String query = entry.query;
+        if (query.length() < TrigramIndex.GRAM_LENGTH) {
+            shortQueries.remove(query);
+        } else {
+            queriesByGram.computeIfPresent(TrigramIndex.gram(query, 0), (gram, queries) -> {
+                queries.remove(query);
+                return queries.isEmpty() ? null : queries;
+            });
+        }
+    }
+
+    private Segment<V> segmentFor(String query) {
+        int hash = query.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private static final class Segment<V> {
+        private final long capacityBytes;
+        private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+        private final ArrayDeque<Entry<V>> clock = new ArrayDeque<>();
+        private long bytes;
+        private int ghosts;
+
+        private Segment(long capacityBytes) {
+            this.capacityBytes = capacityBytes;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final String query;
+        private final V value;
+        private final long bytes;
+        private volatile boolean referenced;
+        private boolean removed;
+
+        private Entry(String query, V value, long bytes) {
+            this.query = query;
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
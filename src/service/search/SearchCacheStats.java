@@ -0,0 +1,22 @@
+package service.search;
+
+public record SearchCacheStats(
+    long hits,
+    long misses,
+    long evictions,
+    long invalidations,
+    int entries,
+    long estimatedBytes,
+    long capacityBytes
+) {
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hit rate: %.1f%%, hits: %d, misses: %d, evictions: %d, invalidations: %d, entries: %d, memory: %d/%d KB",
+                hitRate() * 100, hits, misses, evictions, invalidations, entries, estimatedBytes >> 10, capacityBytes >> 10);
+    }
+}
@@ -0,0 +1,242 @@
+package service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class TextIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Comparator<Hit> RANKING = (a, b) -> {
+        int byScore = Double.compare(b.score(), a.score());
+        return byScore != 0 ? byScore : Integer.compare(a.position(), b.position());
+    };
+
+    private final Map<String, Postings> postings = new ConcurrentHashMap<>();
+    private volatile int[] lengths = new int[16];
+    private volatile int[] positions = new int[16];
+    private int[] documents = new int[16];
+    private volatile long totalLength;
+    private volatile int documentCount;
+    private volatile int size;
+
+    public synchronized void add(String... fields) {
+        int position = size;
+        if (position == documents.length) {
+            documents = Arrays.copyOf(documents, position * 2);
+        }
+        documents[position] = index(position, fields);
+        size = position + 1;
+    }
+
+    public synchronized void update(int position, String[] previous, String[] fields) {
+        int document = documents[position];
+        positions[document] = -1;
+        totalLength -= lengths[document];
+        documents[position] = index(position, fields);
+        for (String token : new LinkedHashSet<>(tokenize(previous))) {
+            Postings list = postings.get(token);
+            if (list != null) {
+                list.live--;
+            }
+        }
+    }
+
+    private int index(int position, String[] fields) {
+        int document = documentCount;
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String token : tokenize(fields)) {
+            frequencies.merge(token, 1, Integer::sum);
+            length++;
+        }
+        if (document == lengths.length) {
+            lengths = Arrays.copyOf(lengths, document * 2);
+            positions = Arrays.copyOf(positions, document * 2);
+        }
+        lengths[document] = length;
+        positions[document] = position;
+        frequencies.forEach((token, frequency) ->
+                postings.computeIfAbsent(token, k -> new Postings()).add(document, frequency));
+        totalLength += length;
+        documentCount = document + 1;
+        return document;
+    }
+
+    private static List<String> tokenize(String[] fields) {
+        List<String> tokens = new ArrayList<>();
+        for (String field : fields) {
+            tokens.addAll(tokenize(field));
+        }
+        return tokens;
+    }
+
+    public int[] search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        int documentsIndexed = documentCount;
+        int count = size;
+        double averageLength = (double) totalLength / Math.max(1, count);
+        int[] documentLengths = lengths;
+        int[] documentPositions = positions;
+
+        List<Cursor> cursors = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                return new int[0];
+            }
+            int live = list.live;
+            double idf = Math.log(1 + (count - live + 0.5) / (live + 0.5));
+            cursors.add(new Cursor(list.entries, list.size, idf));
+        }
+        cursors.sort(Comparator.comparingInt(cursor -> cursor.size));
+
+        PriorityQueue<Hit> worstFirst = new PriorityQueue<>(RANKING.reversed());
+        Cursor rarest = cursors.get(0);
+        candidates:
+        for (int i = 0; i < rarest.size; i++) {
+            int document = document(rarest.entries[i]);
+            if (document >= documentsIndexed) {
+                break;
+            }
+            int position = documentPositions[document];
+            if (position < 0) {
+                continue;
+            }
+            double score = 0;
+            double normalization = K1 * (1 - B + B * documentLengths[document] / averageLength);
+            for (Cursor cursor : cursors) {
+                long entry = cursor == rarest ? rarest.entries[i] : cursor.seek(document);
+                if (entry < 0) {
+                    continue candidates;
+                }
+                int frequency = frequency(entry);
+                score += cursor.idf * frequency * (K1 + 1) / (frequency + normalization);
+            }
+            if (worstFirst.size() < limit) {
+                worstFirst.add(new Hit(position, score));
+            } else if (score > worstFirst.peek().score()) {
+                worstFirst.poll();
+                worstFirst.add(new Hit(position, score));
+            }
+        }
+
+        Hit[] hits = worstFirst.toArray(new Hit[0]);
+        Arrays.sort(hits, RANKING);
+        int[] positions = new int[hits.length];
+        for (int i = 0; i < hits.length; i++) {
+            positions[i] = hits[i].position();
+        }
+        return positions;
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(fold(c));
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    public static char fold(char c) {
+        char lower = Character.toLowerCase(c);
+        return switch (lower) {
+            case 'ą' -> 'a';
+            case 'ć' -> 'c';
+            case 'ę' -> 'e';
+            case 'ł' -> 'l';
+            case 'ń' -> 'n';
+            case 'ó' -> 'o';
+            case 'ś' -> 's';
+            case 'ź', 'ż' -> 'z';
+            default -> lower;
+        };
+    }
+
+    private static int document(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    private static int frequency(long entry) {
+        return (int) entry;
+    }
+
+    private record Hit(int position, double score) {
+    }
+
+    private static final class Cursor {
+        private final long[] entries;
+        private final int size;
+        private final double idf;
+        private int index;
+
+        private Cursor(long[] entries, int size, double idf) {
+            this.entries = entries;
+            this.size = size;
+            this.idf = idf;
+        }
+
+        private long seek(int document) {
+            int step = 1;
+            int high = index;
+            while (high < size && document(entries[high]) < document) {
+                index = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            high = Math.min(high, size - 1);
+            int low = index;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int candidate = document(entries[middle]);
+                if (candidate < document) {
+                    low = middle + 1;
+                } else if (candidate > document) {
+                    high = middle - 1;
+                } else {
+                    index = middle + 1;
+                    return entries[middle];
+                }
+            }
+            index = low;
+            return -1;
+        }
+    }
+
+    private static final class Postings {
+        private volatile long[] entries = new long[1];
+        private volatile int size;
+        private volatile int live;
+
+        private void add(int document, int frequency) {
+            int count = size;
+            long[] current = entries;
+            if (count == current.length) {
+                current = Arrays.copyOf(current, count * 2);
+                current[count] = (long) document << 32 | frequency;
+                entries = current;
+            } else {
+                current[count] = (long) document << 32 | frequency;
+            }
+            size = count + 1;
+            live++;
+        }
+    }
+}
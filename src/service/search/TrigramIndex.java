@@ -0,0 +1,73 @@
+package service.search;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+
+public class TrigramIndex {
+    public static final int GRAM_LENGTH = 3;
+
+    private final Matcher entries;
+    private final Map<Long, PostingList> postings = new ConcurrentHashMap<>();
+    private volatile int size;
+
+    public interface Matcher {
+        boolean contains(int position, String query);
+    }
+
+    public TrigramIndex(Matcher entries) {
+        this.entries = entries;
+    }
+
+    public synchronized void add(String text) {
+        int position = size;
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            postings.computeIfAbsent(gram(text, i), k -> new PostingList()).add(position);
+        }
+        size = position + 1;
+    }
+
+    public void search(String query, IntConsumer matches) {
+        if (query.length() < GRAM_LENGTH) {
+            int count = size;
+            for (int position = 0; position < count; position++) {
+                if (entries.contains(position, query)) {
+                    matches.accept(position);
+                }
+            }
+            return;
+        }
+
+        PostingList candidates = null;
+        for (int i = 0; i + GRAM_LENGTH <= query.length(); i++) {
+            PostingList list = postings.get(gram(query, i));
+            if (list == null) {
+                return;
+            }
+            if (candidates == null || list.size() < candidates.size()) {
+                candidates = list;
+            }
+        }
+
+        int count = candidates.size();
+        for (int i = 0; i < count; i++) {
+            int position = candidates.get(i);
+            if (entries.contains(position, query)) {
+                matches.accept(position);
+            }
+        }
+    }
+
+    public static boolean containsIgnoreCase(String text, String query) {
+        for (int start = 0; start + query.length() <= text.length(); start++) {
+            if (text.regionMatches(true, start, query, 0, query.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static long gram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+}
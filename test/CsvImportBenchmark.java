@@ -0,0 +1,78 @@
+import io.file.BinaryFileManager;
+import io.file.CsvFileManager;
+import io.file.FileManager;
+import io.file.FormatConverter;
+import io.file.ImportMode;
+import model.LibraryCatalog;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class CsvImportBenchmark {
+    private static final int WARMUP_RUNS = 1;
+    private static final int MEASURED_RUNS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int books = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int users = books / 10;
+        Path directory = Files.createTempDirectory("library-benchmark");
+        generate(directory, books, users);
+        System.out.println("Generated " + books + " books and " + users + " users in " + directory);
+
+        for (ImportMode mode : ImportMode.values()) {
+            measure(mode.name(), new CsvFileManager(directory, mode));
+        }
+        FormatConverter.convert(new CsvFileManager(directory, ImportMode.PARALLEL), new BinaryFileManager(directory));
+        measure("BINARY", new BinaryFileManager(directory));
+    }
+
+    private static void measure(String name, FileManager fileManager) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            fileManager.importData();
+        }
+        long best = Long.MAX_VALUE;
+        LibraryCatalog catalog = null;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            catalog = fileManager.importData();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-10s best of %d: %6d ms (%d books, %d users, %d watched books)%n", name, MEASURED_RUNS,
+                best / 1_000_000, catalog.getBooks().size(), catalog.getUsers().size(), catalog.getBookObservers().size());
+    }
+
+    private static void generate(Path directory, int books, int users) throws IOException {
+        Random random = new Random(42);
+        String[] statuses = {"AVAILABLE", "AVAILABLE", "AVAILABLE", "BORROWED", "MISSING"};
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("Library.csv"))) {
+            for (int i = 0; i < books; i++) {
+                writer.write(title(i) + ";Autor " + random.nextInt(books / 20 + 1) + ";" + (1800 + random.nextInt(225)) + ";" + statuses[random.nextInt(statuses.length)]);
+                writer.newLine();
+            }
+        }
+        String[] types = {"STUDENT", "TEACHER", "LIBRARIAN"};
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("Library_users.csv"))) {
+            for (int i = 1; i <= users; i++) {
+                StringBuilder borrowed = new StringBuilder("[");
+                for (int b = random.nextInt(4); b > 0; b--) {
+                    borrowed.append(borrowed.length() > 1 ? ", " : "").append(title(random.nextInt(books)));
+                }
+                writer.write(types[random.nextInt(types.length)] + ";" + i + ";Imię" + i + ";Nazwisko" + i + ";user" + i + "@example.com;" + borrowed + "]");
+                writer.newLine();
+            }
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("Notifications.csv"))) {
+            for (int i = 0; i < books / 100; i++) {
+                writer.write(title(random.nextInt(books)) + ";[" + (1 + random.nextInt(users)) + ", " + (1 + random.nextInt(users)) + "]");
+                writer.newLine();
+            }
+        }
+    }
+
+    private static String title(int index) {
+        return "Książka numer " + index;
+    }
+}
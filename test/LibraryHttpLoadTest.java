@@ -0,0 +1,98 @@
+import app.LibraryHttpServer;
+import app.LibraryInterface;
+import model.LibraryCatalog;
+import model.publications.Book;
+import model.publications.BookStatus;
+import model.users.User;
+import service.factory.UserFactory;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LibraryHttpLoadTest {
+    private static final int BOOKS = 10_000;
+    private static final int USERS = 1_000;
+    private static final int CLIENTS = 2_000;
+    private static final int REQUESTS_PER_CLIENT = 25;
+
+    public static void main(String[] args) throws Exception {
+        LibraryCatalog catalog = new LibraryCatalog();
+        LibraryInterface libraryInterface = new LibraryInterface(catalog);
+        for (int i = 0; i < BOOKS; i++) {
+            libraryInterface.addBookToCatalog(new Book("Book " + i, "Author " + (i % 97), 1900 + i % 120, BookStatus.AVAILABLE));
+        }
+        for (int i = 0; i < USERS; i++) {
+            User user = UserFactory.createUser("Librarian", libraryInterface.getNextId(), "First" + i, "Last" + i, "user" + i + "@example.com");
+            libraryInterface.addUserToSystem(user);
+        }
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        LibraryHttpServer server = new LibraryHttpServer(libraryInterface, 0);
+        server.start();
+        String baseUrl = "http://localhost:" + server.getPort();
+
+        AtomicInteger serverErrors = new AtomicInteger();
+        long started = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder().executor(clients).build()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                futures.add(clients.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        String title = encode("Book " + random.nextInt(BOOKS));
+                        String userId = String.valueOf(1 + random.nextInt(USERS));
+                        HttpRequest request = switch (random.nextInt(3)) {
+                            case 0 -> HttpRequest.newBuilder(URI.create(baseUrl + "/books/search?title=" + title)).GET().build();
+                            case 1 -> post(baseUrl + "/borrow", "userId=" + userId + "&title=" + title);
+                            default -> post(baseUrl + "/return", "userId=" + userId + "&title=" + title);
+                        };
+                        if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 500) {
+                            serverErrors.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            server.stop();
+            System.setOut(console);
+        }
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        int requests = CLIENTS * REQUESTS_PER_CLIENT;
+        System.out.printf("%d clients, %d requests in %.2f s (%.0f req/s), server errors: %d%n",
+                CLIENTS, requests, seconds, requests / seconds, serverErrors.get());
+        if (serverErrors.get() > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static HttpRequest post(String url, String form) {
+        return HttpRequest.newBuilder(URI.create(url))
+                          .header("Content-Type", "application/x-www-form-urlencoded")
+                          .POST(HttpRequest.BodyPublishers.ofString(form))
+                          .build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,215 @@
+import app.LibraryInterface;
+import model.CatalogSnapshot;
+import model.LibraryCatalog;
+import model.OperationResult;
+import model.publications.Book;
+import model.publications.BookStatus;
+import model.users.User;
+import service.factory.UserFactory;
+import service.search.Completion;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LibraryStressTest {
+    private static final int BOOKS = 200;
+    private static final int USERS = 50;
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        List<String> failures = new ArrayList<>();
+        try {
+            raceForSingleCopy(failures);
+            randomBorrowAndReturn(failures);
+        } finally {
+            System.setOut(console);
+        }
+
+        if (failures.isEmpty()) {
+            System.out.println("Stress test passed.");
+        } else {
+            failures.forEach(System.out::println);
+            System.exit(1);
+        }
+    }
+
+    private static void raceForSingleCopy(List<String> failures) throws Exception {
+        LibraryCatalog catalog = new LibraryCatalog();
+        LibraryInterface libraryInterface = new LibraryInterface(catalog);
+        catalog.addBook(new Book("Lalka", "Bolesław Prus", 1890, BookStatus.AVAILABLE));
+        List<User> users = createUsers(libraryInterface, THREADS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<OperationResult>> results = new ArrayList<>();
+        for (User user : users) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return libraryInterface.borrowBook(user, "Lalka");
+            }));
+        }
+        start.countDown();
+
+        int winners = 0;
+        for (Future<OperationResult> result : results) {
+            if (result.get() == OperationResult.SUCCESS) {
+                winners++;
+            }
+        }
+        executor.shutdown();
+
+        if (winners != 1) {
+            failures.add("Expected exactly one borrower of the same copy, got " + winners);
+        }
+        checkInvariants(catalog, failures);
+    }
+
+    private static void randomBorrowAndReturn(List<String> failures) throws Exception {
+        LibraryCatalog catalog = new LibraryCatalog();
+        LibraryInterface libraryInterface = new LibraryInterface(catalog);
+        for (int i = 0; i < BOOKS; i++) {
+            libraryInterface.addBookToCatalog(new Book("Book " + i, "Author " + (i % 17), 1900 + i % 120, BookStatus.AVAILABLE));
+        }
+        List<User> users = createUsers(libraryInterface, USERS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        AtomicInteger successfulOperations = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    User user = users.get(random.nextInt(users.size()));
+                    String title = "book " + random.nextInt(BOOKS);
+                    OperationResult result = random.nextBoolean()
+                            ? libraryInterface.borrowBook(user, title)
+                            : libraryInterface.returnBook(user, title);
+                    if (result == OperationResult.SUCCESS) {
+                        successfulOperations.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        AtomicInteger readerErrors = new AtomicInteger();
+        Future<?> reader = executor.submit(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    if (libraryInterface.searchBooks("book 1").isEmpty()) {
+                        readerErrors.incrementAndGet();
+                    }
+                    if (libraryInterface.completeBooks("book", 10).isEmpty()) {
+                        readerErrors.incrementAndGet();
+                    }
+                    if (libraryInterface.searchBooksRanked("book author 1", 10).isEmpty()) {
+                        readerErrors.incrementAndGet();
+                    }
+                    catalog.iterator().forEachRemaining(book -> { });
+                    CatalogSnapshot snapshot = catalog.snapshot();
+                    long borrowed = snapshot.books().parallel().filter(book -> book.status() == BookStatus.BORROWED).count();
+                    if (borrowed != snapshot.countBooksByStatus(BookStatus.BORROWED)) {
+                        readerErrors.incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    readerErrors.incrementAndGet();
+                }
+            }
+        });
+
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        reader.cancel(true);
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        if (readerErrors.get() > 0) {
+            failures.add("Concurrent readers failed " + readerErrors.get() + " times");
+        }
+        if (successfulOperations.get() == 0) {
+            failures.add("No borrow or return succeeded");
+        }
+        checkInvariants(catalog, failures);
+    }
+
+    private static List<User> createUsers(LibraryInterface libraryInterface, int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String type = i % 2 == 0 ? "Student" : "Teacher";
+            User user = UserFactory.createUser(type, libraryInterface.getNextId(), "First" + i, "Last" + i, "user" + i + "@example.com");
+            libraryInterface.addUserToSystem(user);
+            users.add(user);
+        }
+        return users;
+    }
+
+    private static void checkInvariants(LibraryCatalog catalog, List<String> failures) {
+        Map<String, Integer> holders = new HashMap<>();
+        for (User user : catalog.getUsers()) {
+            List<Book> borrowed = user.getBorrowedBooks();
+            if (borrowed.size() > user.getMaxBooks()) {
+                failures.add("User " + user.getId() + " holds " + borrowed.size() + " books, limit " + user.getMaxBooks());
+            }
+            for (Book book : borrowed) {
+                holders.merge(book.title(), 1, Integer::sum);
+            }
+        }
+
+        for (Book book : catalog) {
+            int count = holders.getOrDefault(book.title(), 0);
+            if (book.status() == BookStatus.BORROWED && count != 1) {
+                failures.add("Borrowed book " + book.title() + " is held by " + count + " users");
+            }
+            if (book.status() == BookStatus.AVAILABLE && count != 0) {
+                failures.add("Available book " + book.title() + " is held by " + count + " users");
+            }
+        }
+
+        int total = 0;
+        for (BookStatus status : BookStatus.values()) {
+            int counted = catalog.countBooksByStatus(status);
+            int listed = catalog.getBooksByStatus(status).size();
+            if (counted != listed) {
+                failures.add("Status " + status + " count " + counted + " does not match bucket size " + listed);
+            }
+            total += counted;
+        }
+        if (total != catalog.getBooks().size()) {
+            failures.add("Status counts add up to " + total + " instead of " + catalog.getBooks().size());
+        }
+
+        for (Book book : catalog.searchBooks("book 1")) {
+            if (book.status() != catalog.findBook(book.title()).status()) {
+                failures.add("Cached search result for " + book.title() + " is stale: " + book.status());
+            }
+        }
+
+        long previousScore = Long.MAX_VALUE;
+        for (Completion completion : catalog.completeBooks("Book", 100)) {
+            if (completion.score() > previousScore || !completion.text().toLowerCase().startsWith("book")) {
+                failures.add("Completion " + completion + " is out of order or does not match the prefix");
+            }
+            previousScore = completion.score();
+        }
+
+        List<Book> ranked = catalog.searchBooksRanked("author 3", BOOKS);
+        long byAuthor = catalog.getBooks().stream().filter(book -> book.author().equals("Author 3")).count();
+        if (ranked.size() != byAuthor) {
+            failures.add("Ranked search for author 3 returned " + ranked.size() + " books instead of " + byAuthor);
+        }
+        for (Book book : ranked) {
+            if (!book.author().equals("Author 3") || book.status() != catalog.findBook(book.title()).status()) {
+                failures.add("Ranked search returned " + book + " for author 3");
+            }
+        }
+    }
+}
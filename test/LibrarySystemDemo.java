@@ -6,6 +6,7 @@ import model.publications.Book;
 import model.publications.BookStatus;
 import model.users.User;
 import service.factory.UserFactory;
+import service.metrics.LibraryMetrics;
 
 import java.util.Iterator;
 
@@ -36,13 +37,14 @@ public class LibrarySystemDemo {
         catalog1.addObserverToBook(book, student);
         catalog1.addObserverToBook(book, teacher);
         System.out.println("Notifying observers about borrowing the book...");
-        libraryInterface.borrowBook(student, "Design Patterns");
+        System.out.println("Borrow Design Patterns: " + libraryInterface.borrowBook(student, "Design Patterns"));
+        catalog1.getNotificationDispatcher().flush();
 
         System.out.println("\n=== Facade ===");
         libraryInterface.addBookToCatalog(new Book("Clean Code", "Robert C. Martin", 2008, BookStatus.AVAILABLE));
         libraryInterface.addUserToSystem(student);
-        libraryInterface.borrowBook(student, "Clean Code");
-        libraryInterface.returnBook(student, "Clean Code");
+        System.out.println("Borrow Clean Code: " + libraryInterface.borrowBook(student, "Clean Code"));
+        System.out.println("Return Clean Code: " + libraryInterface.returnBook(student, "Clean Code"));
 
         System.out.println("\n=== Iterator ===");
         Iterator<User> userIterator = catalog1.userIterator();
@@ -53,6 +55,8 @@ public class LibrarySystemDemo {
         System.out.println("Books in the catalog:");
         bookIterator.forEachRemaining(System.out::println);
 
+        System.out.println("\nNotifications: " + catalog1.getNotificationDispatcher().getStats());
+        System.out.print("\nMetrics:\n" + LibraryMetrics.getInstance().report());
         System.out.println("\nDemo finished.");
     }
 }